@@ -1,15 +1,24 @@
 CREATE DATABASE IF NOT EXISTS blogdb;
 USE blogdb;
 
+------------------------------------------------------
+-- Reference only: the application creates and upgrades the schema itself
+-- with Flyway (src/main/resources/db/migration). This is the result of all
+-- migrations, for reading; change the schema by adding a migration. Constraint
+-- names are the ones Hibernate generated when it still managed the schema.
+------------------------------------------------------
+
 ------------------------------------------------------
 -- USERS TABLE
 ------------------------------------------------------
 CREATE TABLE users (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    username VARCHAR(100) NOT NULL UNIQUE,
+    username VARCHAR(255) NOT NULL,
     password VARCHAR(255) NOT NULL,
-    email VARCHAR(150),
-    role VARCHAR(50)
+    email VARCHAR(255),
+    role VARCHAR(255),
+
+    CONSTRAINT UK_r43af9ap4edm43mmtq01oddj6 UNIQUE (username)
 );
 
 ------------------------------------------------------
@@ -21,40 +30,52 @@ CREATE TABLE posts (
     title VARCHAR(255) NOT NULL,
     content TEXT,
     author_id BIGINT,
-    
-    likes BIGINT DEFAULT 0,
-    comments BIGINT DEFAULT 0,
+    -- /uploads/... reference; LONGTEXT until InlineImageMigration has moved
+    -- the legacy inline base64 out and shrunk it
+    image_base64 VARCHAR(512),
 
-    created_at DATETIME,
-    updated_at DATETIME,
+    likes INT NOT NULL,
+    comments INT NOT NULL,
 
-    CONSTRAINT fk_posts_user
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    -- set on delete; the row, its likes, comments and image are purged in the background
+    deleted_at DATETIME(6),
+
+    CONSTRAINT FK6xvn0811tkyo3nfjk2xvqx6ns
         FOREIGN KEY (author_id)
         REFERENCES users(id)
-        ON DELETE SET NULL
 );
 
+-- author timeline: WHERE author_id = ? ORDER BY created_at DESC, id DESC
+CREATE INDEX idx_posts_author_created ON posts (author_id, created_at, id);
+
+-- feed: WHERE deleted_at IS NULL ORDER BY created_at DESC, id DESC;
+-- also the purge backlog, oldest tombstone first
+CREATE INDEX idx_posts_created ON posts (deleted_at, created_at, id);
+
 ------------------------------------------------------
 -- POST COMMENTS TABLE (corresponds to PostComment entity)
 ------------------------------------------------------
 CREATE TABLE post_comments (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    post_id BIGINT NOT NULL,
-    author_id BIGINT NOT NULL,
-    content TEXT,
-    created_at DATETIME,
+    post_id BIGINT,
+    user_id BIGINT,
+    content TEXT NOT NULL,
+    created_at DATETIME(6),
 
-    CONSTRAINT fk_comment_post
+    CONSTRAINT FKaawaqxjs3br8dw5v90w7uu514
         FOREIGN KEY (post_id)
-        REFERENCES posts(id)
-        ON DELETE CASCADE,
+        REFERENCES posts(id),
 
-    CONSTRAINT fk_comment_user
-        FOREIGN KEY (author_id)
+    CONSTRAINT FKsnxoecngu89u3fh4wdrgf0f2g
+        FOREIGN KEY (user_id)
         REFERENCES users(id)
-        ON DELETE CASCADE
 );
 
+-- comments of a post, newest first (ids grow with created_at), and its keyset pages
+CREATE INDEX idx_post_comments_post_id ON post_comments (post_id, id);
+
 ------------------------------------------------------
 -- POST LIKES TABLE (corresponds to PostLike entity)
 ------------------------------------------------------
@@ -62,14 +83,55 @@ CREATE TABLE post_likes (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     post_id BIGINT NOT NULL,
     user_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+
+    -- makes INSERT IGNORE an idempotent like
+    CONSTRAINT UK5l2rj28vw5oj6f7ox746grokg UNIQUE (post_id, user_id),
 
-    CONSTRAINT fk_like_post
+    CONSTRAINT FKa5wxsgl4doibhbed9gm7ikie2
         FOREIGN KEY (post_id)
-        REFERENCES posts(id)
-        ON DELETE CASCADE,
+        REFERENCES posts(id),
 
-    CONSTRAINT fk_like_user
+    CONSTRAINT FKkgau5n0nlewg6o9lr4yibqgxj
         FOREIGN KEY (user_id)
         REFERENCES users(id)
-        ON DELETE CASCADE
 );
+
+-- which of a feed page's posts a user liked
+CREATE INDEX idx_post_likes_user_post ON post_likes (user_id, post_id);
+
+------------------------------------------------------
+-- STORED IMAGES TABLE (corresponds to StoredImage entity)
+-- one row per distinct upload, shared by every post with the same bytes
+------------------------------------------------------
+CREATE TABLE stored_images (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    path VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255),
+    size_bytes BIGINT,
+    ref_count INT NOT NULL,
+    created_at DATETIME(6)
+);
+
+------------------------------------------------------
+-- AUTHOR STATS TABLE (corresponds to AuthorStats entity)
+-- running totals per author; a row is created on the first read of an author's stats
+------------------------------------------------------
+CREATE TABLE author_stats (
+    author_id BIGINT PRIMARY KEY,
+    posts BIGINT NOT NULL,
+    likes BIGINT NOT NULL,
+    comments BIGINT NOT NULL
+);
+
+------------------------------------------------------
+-- FEED VERSION TABLE
+-- single row bumped by every instance after local changes and polled by all,
+-- so feed ETags move with changes made anywhere
+------------------------------------------------------
+CREATE TABLE feed_version (
+    id TINYINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO feed_version (id, version) VALUES (1, 0);
@@ -0,0 +1,143 @@
+package com.blog.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Small in-process cache: bounded by entry count (least recently used goes
+ * first) and optionally by age. Entries may also carry their own deadline,
+ * e.g. a token's expiry. All operations take the same lock, so keep values
+ * cheap to compute outside of it.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxEntries upper bound on the number of entries
+     * @param ttlMillis  age after which an entry is dropped, 0 for no age limit
+     */
+    public ExpiringLruCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringLruCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    // deadline is capped by the cache-wide ttl
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        long deadline = expiresAtMillis;
+        if (ttlMillis > 0) {
+            deadline = Math.min(deadline, System.currentTimeMillis() + ttlMillis);
+        }
+        entries.put(key, new Entry<>(value, deadline));
+    }
+
+    // fn runs under the cache lock, so it must be cheap
+    public synchronized V computeIfAbsent(K key, Function<K, V> fn) {
+        V value = get(key);
+        if (value == null) {
+            value = fn.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    // replaces a present value in place, keeping its deadline; absent keys stay absent
+    public synchronized void update(K key, UnaryOperator<V> fn) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            V next = fn.apply(entry.value());
+            if (next == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, new Entry<>(next, entry.expiresAt()));
+            }
+        }
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    // share of lookups served from the cache since start, 0 before the first lookup
+    public synchronized double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    // same meter names Micrometer uses for its own cache binders
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", this, ExpiringLruCache::hitCount)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, ExpiringLruCache::missCount)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, ExpiringLruCache::evictionCount)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.size", this, ExpiringLruCache::size)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.hit.ratio", this, ExpiringLruCache::hitRatio)
+                .tag("cache", name).register(registry);
+    }
+}
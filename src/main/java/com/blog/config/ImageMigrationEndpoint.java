@@ -0,0 +1,23 @@
+package com.blog.config;
+
+import com.blog.service.InlineImageMigration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// GET /actuator/imagemigration -> state and counters of the inline image migration
+@Component
+@Endpoint(id = "imagemigration")
+@RequiredArgsConstructor
+public class ImageMigrationEndpoint {
+
+    private final InlineImageMigration migration;
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return migration.progress();
+    }
+}
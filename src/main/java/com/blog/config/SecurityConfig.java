@@ -3,8 +3,10 @@ package com.blog.config;
 import com.blog.security.JwtAuthenticationFilter;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -22,6 +24,7 @@ import org.springframework.http.HttpMethod;
 import java.io.IOException;
 
 @Configuration
+@EnableMethodSecurity // honours @PreAuthorize on the admin endpoints
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -54,10 +57,16 @@ public class SecurityConfig {
             	    
             	     .requestMatchers("/uploads/**").permitAll()
             	      
+            	    // admin endpoints, ahead of the public GET rule below
+            	    .requestMatchers("/api/posts/admin/**").hasRole("ADMIN")
+
             	    // READ posts allowed
             	 // READ posts allowed publicly
             	    .requestMatchers(HttpMethod.GET, "/api/posts/**").permitAll()
 
+            	    // author timelines and profile totals
+            	    .requestMatchers(HttpMethod.GET, "/api/users/*/posts", "/api/users/*/stats").permitAll()
+
             	    // CREATE posts
             	    .requestMatchers(HttpMethod.POST, "/api/posts/**").authenticated()
 
@@ -98,9 +107,10 @@ public class SecurityConfig {
         };
     }
 
+    // cost factor: each +1 doubles the CPU time of a hash
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${blog.security.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     // CORS policy for development. Replace/add origins your frontend uses.
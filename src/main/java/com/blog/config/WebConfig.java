@@ -2,16 +2,10 @@ package com.blog.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry
-            .addResourceHandler("/uploads/**")
-            .addResourceLocations("file:/uploads/"); // Leading slash is critical for absolute paths
-    }
+    // /uploads/** is served by UploadController (originals and resized variants)
 
-}
\ No newline at end of file
+}
@@ -1,24 +1,41 @@
 package com.blog.controller;
 
 import com.blog.dto.CommentDto;
+import com.blog.security.AuthenticatedUser;
 import com.blog.service.CommentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/posts")
 public class CommentController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     private final CommentService commentService;
 
+    // without before/limit the full list is returned, as before;
+    // ?limit=20[&before=<id>] returns one keyset page with nextCursor = id for the next call
     @GetMapping("/{postId}/comments")
-    public ResponseEntity<List<CommentDto>> getComments(@PathVariable Long postId) {
-        return ResponseEntity.ok(commentService.getComments(postId));
+    public ResponseEntity<?> getComments(
+            @PathVariable Long postId,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        if (before == null && limit == null) {
+            return ResponseEntity.ok(commentService.getComments(postId));
+        }
+        return ResponseEntity.ok(
+                commentService.getComments(postId, before, limit == null ? DEFAULT_PAGE_SIZE : limit));
+    }
+
+    @GetMapping("/{postId}/comments/count")
+    public ResponseEntity<Long> getCommentCount(@PathVariable Long postId) {
+        return ResponseEntity.ok(commentService.getCommentCount(postId));
     }
 
     @PostMapping("/{postId}/comments")
@@ -27,8 +44,9 @@ public class CommentController {
             @RequestBody CommentDto dto,
             Principal principal) {
 
+        AuthenticatedUser user = AuthenticatedUser.from(principal);
         CommentDto saved = commentService.addComment(
-                postId, principal.getName(), dto.getContent());
+                postId, user.getId(), user.getUsername(), dto.getContent());
 
         return ResponseEntity.ok(saved);
     }
@@ -1,27 +1,56 @@
 package com.blog.controller;
 
+import com.blog.dto.BulkDeleteRequest;
+import com.blog.dto.CursorPage;
 import com.blog.dto.PostDto;
+import com.blog.dto.PostSummaryDto;
+import com.blog.event.FeedVersion;
+import com.blog.event.PostStreamHub;
+import com.blog.exception.ResourceNotFoundException;
+import com.blog.security.AuthenticatedUser;
+import com.blog.service.BulkPostDeletion;
+import com.blog.service.FeedSnapshot;
 import com.blog.service.PostService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLConnection;
 import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/posts")
 @RequiredArgsConstructor
 public class PostController {
 
+    private static final int MAX_LIKED_LOOKUP = 100;
+    // browsers keep the response but always revalidate it with If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
     private final PostService postService;
+    private final PostStreamHub streamHub;
+    private final FeedVersion feedVersion;
+    private final FeedSnapshot feedSnapshot;
+    private final BulkPostDeletion bulkDeletion;
 
     // =========================
     // CREATE POST (TEXT + IMAGE)
@@ -37,7 +66,8 @@ public class PostController {
         dto.setTitle(title);
         dto.setContent(content);
 
-        PostDto created = postService.createPost(dto, image, principal.getName());
+        AuthenticatedUser user = AuthenticatedUser.from(principal);
+        PostDto created = postService.createPost(dto, image, user.getId(), user.getUsername());
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
@@ -45,11 +75,72 @@ public class PostController {
     // GET ALL POSTS (PAGINATED)
     // =========================
     @GetMapping
-    public ResponseEntity<Page<PostDto>> getAllPosts(
+    public ResponseEntity<?> getAllPosts(
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC)
-            Pageable pageable) {
+            Pageable pageable,
+            WebRequest request) {
+
+        // the first pages are written from pre-serialised bytes
+        if (feedSnapshot.coversPage(pageable.getPageNumber(), pageable.getPageSize())) {
+            FeedSnapshot.Snapshot snapshot = feedSnapshot.current();
+            return conditionalJson(request, snapshot.etag(), snapshot.pages().get(pageable.getPageNumber()));
+        }
+        return conditional(request, feedVersion.etag(), () -> postService.getAllPosts(pageable));
+    }
+
+    // =========================
+    // GET FEED (CURSOR / KEYSET)
+    // =========================
+    // GET /api/posts?after=            -> first slice
+    // GET /api/posts?after=<cursor>    -> slice following the cursor
+    @GetMapping(params = "after")
+    public ResponseEntity<?> getFeed(
+            @RequestParam("after") String after,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal,
+            WebRequest request) {
+
+        if (feedSnapshot.coversFirstSlice(after, size, withTotal)) {
+            FeedSnapshot.Snapshot snapshot = feedSnapshot.current();
+            return conditionalJson(request, snapshot.etag(), snapshot.firstSlice());
+        }
+        return conditional(request, feedVersion.etag(), () -> postService.getFeed(after, size, withTotal));
+    }
+
+    // =========================
+    // TRENDING
+    // =========================
+    // the ranking only changes when a post event moves the feed version, so the feed ETag covers it
+    @GetMapping("/trending")
+    public ResponseEntity<List<PostSummaryDto>> getTrending(
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            WebRequest request) {
+        return conditional(request, feedVersion.etag(), () -> postService.getTrending(limit));
+    }
+
+    // =========================
+    // SEARCH
+    // =========================
+    // GET /api/posts/search?q=spring+boot&page=0&size=10
+    @GetMapping("/search")
+    public ResponseEntity<Page<PostSummaryDto>> searchPosts(
+            @RequestParam("q") String query,
+            @PageableDefault(size = 10) Pageable pageable) {
+        return ResponseEntity.ok(postService.searchPosts(query, pageable));
+    }
+
+    // =========================
+    // LIVE UPDATES (SSE)
+    // =========================
+    // events: post_created, post_updated, post_deleted, likes_changed, comment_added, comment_deleted
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed() {
+        return streamHub.subscribeFeed();
+    }
 
-        return ResponseEntity.ok(postService.getAllPosts(pageable));
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPost(@PathVariable Long id) {
+        return streamHub.subscribePost(id);
     }
 
     // =========================
@@ -57,16 +148,71 @@ public class PostController {
     // =========================
     @PostMapping("/{id}/like")
     public ResponseEntity<?> likePost(@PathVariable("id") Long id, Principal principal) {
-        postService.likePost(id, principal.getName());
+        postService.likePost(id, AuthenticatedUser.from(principal).getId());
         return ResponseEntity.ok().build();
     }
 
+    // idempotent variants: repeating a PUT or DELETE leaves the count unchanged
+    @PutMapping("/{id}/like")
+    public ResponseEntity<?> like(@PathVariable("id") Long id, Principal principal) {
+        postService.like(id, AuthenticatedUser.from(principal).getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}/like")
+    public ResponseEntity<?> unlike(@PathVariable("id") Long id, Principal principal) {
+        postService.unlike(id, AuthenticatedUser.from(principal).getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    // =========================
+    // LIKED BY ME (BATCH)
+    // =========================
+    // GET /api/posts/likes/mine?ids=1,2,3 -> ids among those the caller has liked
+    @GetMapping("/likes/mine")
+    public ResponseEntity<Set<Long>> getLikedByMe(@RequestParam("ids") List<Long> ids, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.ok(Set.of());
+        }
+        if (ids.size() > MAX_LIKED_LOOKUP) {
+            throw new IllegalArgumentException("At most " + MAX_LIKED_LOOKUP + " ids per request");
+        }
+        return ResponseEntity.ok(postService.getLikedPostIds(AuthenticatedUser.from(principal).getId(), ids));
+    }
+
     // =========================
     // GET SINGLE POST
     // =========================
     @GetMapping("/{id}")
-    public ResponseEntity<PostDto> getPost(@PathVariable Long id) {
-        return ResponseEntity.ok(postService.getPostById(id));
+    public ResponseEntity<PostDto> getPost(@PathVariable Long id, WebRequest request) {
+        // tag and body come from the same cached PostDto, so they always agree
+        PostDto post = postService.getPostById(id);
+        String etag = "\"post-" + postService.getPostVersion(post) + "\"";
+        return conditional(request, etag, () -> post);
+    }
+
+    // =========================
+    // LEGACY INLINE IMAGE
+    // =========================
+    @GetMapping("/{id}/image")
+    public ResponseEntity<byte[]> getInlineImage(@PathVariable Long id) {
+        // moved to the upload store by the background migration: keep old links working
+        String url = postService.getImageUrl(id);
+        if (url != null && url.startsWith("/uploads/")) {
+            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY).location(URI.create(url)).build();
+        }
+
+        byte[] bytes = postService.getInlineImage(id);
+
+        String type = null;
+        try {
+            type = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(bytes));
+        } catch (IOException ignored) {}
+
+        return ResponseEntity.ok()
+                .contentType(type != null ? MediaType.parseMediaType(type) : MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePublic())
+                .body(bytes);
     }
 
     // =========================
@@ -101,4 +247,44 @@ public class PostController {
         postService.adminDeletePost(id);
         return ResponseEntity.noContent().build();
     }
+
+    // =========================
+    // ADMIN BULK DELETE
+    // =========================
+    // {"ids":[1,2,3]} or {"authorId":7,"from":"2024-01-01T00:00:00","to":"2024-02-01T00:00:00"};
+    // runs in the background, poll the returned job for progress
+    @PostMapping("/admin/bulk-delete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> bulkDelete(@RequestBody BulkDeleteRequest request) {
+        Map<String, Object> job = bulkDeletion.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/posts/admin/bulk-delete/" + job.get("id")))
+                .body(job);
+    }
+
+    @GetMapping("/admin/bulk-delete/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> bulkDeleteProgress(@PathVariable String jobId) {
+        return ResponseEntity.ok(bulkDeletion.progress(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Bulk delete job not found")));
+    }
+
+    // =========================
+    // CONDITIONAL GET
+    // =========================
+    // the ETag is checked before the body is built, so an unchanged resource costs no query
+    // and no serialisation; checkNotModified also sets the ETag header on a 200
+    private <T> ResponseEntity<T> conditional(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(body.get());
+    }
+
+    private ResponseEntity<byte[]> conditionalJson(WebRequest request, String etag, byte[] json) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).contentType(MediaType.APPLICATION_JSON).body(json);
+    }
 }
@@ -0,0 +1,211 @@
+package com.blog.controller;
+
+import com.blog.exception.ResourceNotFoundException;
+import com.blog.service.ImageStorageService;
+import com.blog.service.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * Serves /uploads/**. Upload file names never change content (they are a
+ * content hash, or a UUID for older uploads), so responses are cacheable
+ * for a year and revalidation is answered from the ETag alone.
+ *
+ * Bodies are handed to Tomcat's sendfile when the connector supports it,
+ * otherwise copied with FileChannel.transferTo; either way the image is
+ * not read into a heap buffer. Single byte ranges are honoured.
+ *
+ * Only the accepted image types are served inline; any other file under
+ * the upload root (from before uploads were checked) is sent as an
+ * attachment so the browser never renders it on this origin.
+ */
+@RestController
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final UrlPathHelper PATHS = new UrlPathHelper();
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    // served the original because the requested variant is still being generated
+    private static final String PENDING_VARIANT = "public, max-age=60";
+
+    // Tomcat's sendfile contract (see org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // below this the syscall handoff costs more than a plain copy
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private final ImageStorageService imageStorage;
+    private final ImageVariantService imageVariants;
+
+    // /uploads/ab/cd/<sha>.jpg?w=320 -> smallest variant at least 320px wide, or the original
+    // while it is still being generated; without w the original is served
+    @GetMapping("/uploads/**")
+    public void getUpload(
+            @RequestParam(value = "w", required = false) Integer width,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        String relative = PATHS.getPathWithinApplication(request).substring(ImageStorageService.URL_PREFIX.length());
+        Path original = imageStorage.locate(relative)
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+        ImageVariantService.Selection selection = width == null
+                ? new ImageVariantService.Selection(original, false)
+                : imageVariants.select(original, width);
+        Path file = selection.file();
+
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attrs.size();
+        String etag = etagOf(file, attrs);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, selection.pending() ? PENDING_VARIANT : IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // sets ETag/Last-Modified, and answers If-None-Match / If-Modified-Since with a bodiless 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, attrs.lastModifiedTime().toMillis())) {
+            return;
+        }
+
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        Optional<String> contentType = ImageStorageService.contentTypeOf(file);
+        if (contentType.isPresent()) {
+            response.setContentType(contentType.get());
+        } else {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, etag)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count <= 0) {
+            return;
+        }
+        send(file, start, count, request, response);
+    }
+
+    // =========================
+    // BODY
+    // =========================
+    private void send(Path file, long start, long count,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat streams the file from the page cache after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+    // content-addressed files are identified by their name (<sha> or <sha>.w320);
+    // legacy UUID uploads by size and modification time
+    private static String etagOf(Path file, BasicFileAttributes attrs) {
+        String name = file.getFileName().toString();
+        if (name.length() > 64 && name.substring(0, 64).matches("[0-9a-f]{64}")) {
+            return "\"" + name.substring(0, name.lastIndexOf('.')) + "\"";
+        }
+        return "\"" + Long.toHexString(attrs.size()) + "-" + Long.toHexString(attrs.lastModifiedTime().toMillis()) + "\"";
+    }
+
+    // If-Range: only serve the partial body if the client still has this exact version
+    private static boolean rangeApplies(HttpServletRequest request, String etag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals(etag);
+    }
+
+    /**
+     * Parses a single "bytes=a-b", "bytes=a-" or "bytes=-n" range.
+     *
+     * @return {start, end} inclusive; an empty array to ignore the header and
+     *         send the whole file (malformed or multi-range); null when the
+     *         range is not satisfiable
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
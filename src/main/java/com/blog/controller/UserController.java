@@ -0,0 +1,38 @@
+package com.blog.controller;
+
+import com.blog.dto.AuthorStatsDto;
+import com.blog.dto.CursorPage;
+import com.blog.dto.PostSummaryDto;
+import com.blog.service.PostService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/users")
+public class UserController {
+
+    private final PostService postService;
+
+    // =========================
+    // AUTHOR TIMELINE (KEYSET)
+    // =========================
+    // GET /api/users/7/posts?size=10            -> newest posts of user 7
+    // GET /api/users/7/posts?after=<cursor>     -> slice following the cursor
+    @GetMapping("/{id}/posts")
+    public ResponseEntity<CursorPage<PostSummaryDto>> getPosts(
+            @PathVariable Long id,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        return ResponseEntity.ok(postService.getAuthorPosts(id, after, size));
+    }
+
+    // =========================
+    // AUTHOR TOTALS
+    // =========================
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<AuthorStatsDto> getStats(@PathVariable Long id) {
+        return ResponseEntity.ok(postService.getAuthorStats(id));
+    }
+}
@@ -0,0 +1,5 @@
+package com.blog.dto;
+
+// totals shown on an author's profile: posts written, likes and comments received
+public record AuthorStatsDto(Long authorId, long posts, long likes, long comments) {
+}
@@ -0,0 +1,17 @@
+package com.blog.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Which posts an admin bulk delete removes: either an explicit id list, or
+ * every post matching authorId and/or the [from, to) creation range.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BulkDeleteRequest {
+    private List<Long> ids;
+    private Long authorId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
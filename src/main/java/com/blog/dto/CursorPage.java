@@ -0,0 +1,19 @@
+package com.blog.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing.
+ * nextCursor is opaque to clients and is null on the last slice;
+ * totalElements is only filled in when the caller asked for it.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+    private Long totalElements;
+}
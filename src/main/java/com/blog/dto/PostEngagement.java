@@ -0,0 +1,7 @@
+package com.blog.dto;
+
+import java.time.LocalDateTime;
+
+// counters of a post with its age, enough to seed a trending score without reading likes/comments rows
+public record PostEngagement(Long id, LocalDateTime createdAt, Integer likes, Integer comments) {
+}
@@ -0,0 +1,22 @@
+package com.blog.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Feed card view of a post. Built straight from a JPQL constructor
+ * expression so the full body and inline image data are never loaded;
+ * GET /api/posts/{id} returns the complete PostDto.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class PostSummaryDto {
+    private Long id;
+    private String title;
+    private String excerpt;
+    private Long authorId;
+    private String authorUsername;
+    private LocalDateTime createdAt;
+    private Integer likes;
+    private Integer comments;
+    private String imageUrl;
+}
@@ -0,0 +1,5 @@
+package com.blog.dto;
+
+// the searchable text of a post, read in chunks to build the search index
+public record PostText(Long id, String title, String content) {
+}
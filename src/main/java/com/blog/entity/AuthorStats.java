@@ -0,0 +1,23 @@
+package com.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// running totals over an author's posts, kept by the write paths; a missing row has not been counted yet
+@Entity
+@Table(name = "author_stats")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AuthorStats {
+    @Id
+    private Long authorId;
+
+    @Column(nullable = false)
+    private Long posts;
+
+    // likes and comments received on those posts
+    @Column(nullable = false)
+    private Long likes;
+
+    @Column(nullable = false)
+    private Long comments;
+}
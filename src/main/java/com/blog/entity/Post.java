@@ -2,12 +2,21 @@ package com.blog.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Where;
 import java.time.LocalDateTime;
 import java.util.List;
 import com.blog.entity.PostLike;
 import com.blog.entity.PostComment;
 @Entity
-@Table(name = "posts")
+// the schema itself comes from db/migration; these mirror the indexes declared there.
+// author timeline: WHERE author_id = ? ORDER BY created_at DESC, id DESC is a range scan of idx_posts_author_created;
+// feed (deleted_at IS NULL ORDER BY created_at DESC, id DESC) and purge scan share idx_posts_created
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_author_created", columnList = "author_id, created_at, id"),
+        @Index(name = "idx_posts_created", columnList = "deleted_at, created_at, id")
+})
+// deleted posts stay as tombstones until PostPurger removes them; every JPQL read skips them
+@Where(clause = "deleted_at IS NULL")
 @Data
 @Builder
 @NoArgsConstructor
@@ -27,9 +36,15 @@ public class Post {
     @JoinColumn(name="author_id")
     private User author;
 
+    // named explicitly so the index above can refer to it
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // set when the post is deleted; the row and its children are purged later
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     // optional aggregates stored for quick display
  // Inside Post.java
 
@@ -47,8 +62,9 @@ public class Post {
     @Builder.Default
     private Integer likes = 0;
     
-    @Lob
-    @Column(columnDefinition = "LONGTEXT")
+    // /uploads/... reference; legacy inline base64 is moved out by InlineImageMigration,
+    // which also shrinks an existing LONGTEXT column to this size
+    @Column(length = 512)
     private String imageBase64;
 
 
@@ -5,7 +5,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "post_comments")
+// comments of a post, newest first by id, and their keyset pages (db/migration/V4)
+@Table(name = "post_comments",
+       indexes = @Index(name = "idx_post_comments_post_id", columnList = "post_id, id"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class PostComment {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
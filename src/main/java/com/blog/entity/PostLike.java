@@ -8,6 +8,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "post_likes", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"post_id", "user_id"})
+}, indexes = {
+    // which of a feed page's posts a user liked (db/migration/V4)
+    @Index(name = "idx_post_likes_user_post", columnList = "user_id, post_id")
 })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class PostLike {
@@ -0,0 +1,30 @@
+package com.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// one row per distinct upload (keyed by content hash); posts point at the file path
+@Entity
+@Table(name = "stored_images")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class StoredImage {
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    // relative to blog.uploads.dir, e.g. ab/cd/<sha256>.jpg
+    @Column(nullable = false)
+    private String path;
+
+    private String contentType;
+
+    private Long sizeBytes;
+
+    // number of posts referencing this file; the file is deleted when it drops to 0
+    @Column(nullable = false)
+    private Integer refCount;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,95 @@
+package com.blog.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version stamp of everything a feed page can show. Any {@link PostEvent}
+ * (create, edit, delete, like, comment) moves it forward, after the change
+ * has committed, so a client that presents the current ETag has seen every
+ * change and can be answered with a 304 without running a query.
+ *
+ * Events only reach the instance that made the change, so the stamp also
+ * carries the shared feed_version row: every sync interval an instance
+ * bumps it if it had local changes and reads it back. A change made through
+ * another instance therefore invalidates this instance's ETags within about
+ * one interval. While the row cannot be read the stamp moves on every sync,
+ * so nothing is answered with a 304 that might be stale.
+ *
+ * The local part starts from the boot time, so ETags issued by another
+ * instance or before a restart never match.
+ *
+ * Changes this instance has no event for (made through another instance,
+ * or announced with {@link #bump()}) are also counted separately, so that
+ * caches patched from events know when they have to re-read instead.
+ */
+@Component
+public class FeedVersion {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedVersion.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicLong untracked = new AtomicLong();
+    private volatile long shared = -1;
+
+    public FeedVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEvent event) {
+        advance();
+    }
+
+    // for changes that are not published as events (e.g. background rewrites)
+    public void bump() {
+        untracked.incrementAndGet();
+        advance();
+    }
+
+    private void advance() {
+        version.incrementAndGet();
+        dirty.set(true);
+    }
+
+    // moves whenever the feed may have changed in a way no PostEvent on this instance describes
+    public long untrackedChanges() {
+        return untracked.get();
+    }
+
+    public String etag() {
+        return "\"feed-" + Long.toString(shared, 36) + "-" + epoch + "-" + version.get() + "\"";
+    }
+
+    @Scheduled(fixedDelayString = "${blog.feed.version.sync-interval-ms:1000}")
+    public void sync() {
+        try {
+            boolean bumped = dirty.getAndSet(false);
+            if (bumped) {
+                jdbcTemplate.update("UPDATE feed_version SET version = version + 1 WHERE id = 1");
+            }
+            Long current = jdbcTemplate.queryForObject("SELECT version FROM feed_version WHERE id = 1", Long.class);
+            long next = current == null ? -1 : current;
+            // anything beyond our own increment was another instance (or we cannot tell)
+            if (next != shared + (bumped ? 1 : 0)) {
+                untracked.incrementAndGet();
+            }
+            shared = next;
+        } catch (RuntimeException e) {
+            // other instances' changes cannot be seen: make sure no earlier ETag matches
+            dirty.set(true);
+            version.incrementAndGet();
+            logger.debug("Could not sync the feed version: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.blog.event;
+
+import com.blog.dto.CommentDto;
+import com.blog.dto.PostDto;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Something changed on a post. Published by the service write paths and
+ * consumed after the transaction commits, so listeners never see changes
+ * that were rolled back.
+ *
+ * @param delta   counter change for LIKES_CHANGED / COMMENT_* events, otherwise 0
+ * @param payload PostDto for created/updated posts, CommentDto for added comments,
+ *                the comment id for deleted comments
+ * @param userId  the liking user for LIKES_CHANGED; kept out of the JSON that
+ *                PostStreamHub sends to anonymous subscribers
+ */
+public record PostEvent(Type type, Long postId, Long authorId, int delta, Object payload,
+                        @JsonIgnore Long userId) {
+
+    public enum Type {
+        POST_CREATED, POST_UPDATED, POST_DELETED, LIKES_CHANGED, COMMENT_ADDED, COMMENT_DELETED
+    }
+
+    public static PostEvent created(PostDto post) {
+        return new PostEvent(Type.POST_CREATED, post.getId(), post.getAuthorId(), 0, post, null);
+    }
+
+    public static PostEvent updated(PostDto post) {
+        return new PostEvent(Type.POST_UPDATED, post.getId(), post.getAuthorId(), 0, post, null);
+    }
+
+    public static PostEvent deleted(Long postId, Long authorId) {
+        return new PostEvent(Type.POST_DELETED, postId, authorId, 0, null, null);
+    }
+
+    public static PostEvent likes(Long postId, Long userId, int delta) {
+        return new PostEvent(Type.LIKES_CHANGED, postId, null, delta, null, userId);
+    }
+
+    public static PostEvent commentAdded(CommentDto comment) {
+        return new PostEvent(Type.COMMENT_ADDED, comment.getPostId(), null, 1, comment, null);
+    }
+
+    public static PostEvent commentDeleted(Long postId, Long commentId) {
+        return new PostEvent(Type.COMMENT_DELETED, postId, null, -1, commentId, null);
+    }
+}
@@ -0,0 +1,304 @@
+package com.blog.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out of {@link PostEvent}s to Server-Sent Events subscribers.
+ *
+ * Each event is serialised once and the same frame is queued for every
+ * subscriber. Subscribers hold no request thread while idle. Each one has a bounded
+ * queue drained by a small shared sender pool; a subscriber whose queue
+ * overflows is too slow to keep up and is disconnected (it can reconnect
+ * and refetch). A comment line is sent every heartbeat interval so proxies
+ * keep idle connections open and dead ones are detected.
+ *
+ * A client that stops reading without closing the connection blocks its
+ * sender thread in the socket write. The heartbeat disconnects subscribers
+ * whose send has been stuck longer than the send timeout and adds a sender
+ * thread for each of them until the write returns, so a few stalled clients
+ * never starve everyone else. Emitters are only completed from the drain
+ * side, since completing one locks it for as long as a send is blocked.
+ */
+@Component
+public class PostStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostStreamHub.class);
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final int senderThreads;
+    private final long sendTimeoutNanos;
+    private final ThreadPoolExecutor sender;
+
+    private final Set<Subscriber> feedSubscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> postSubscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // sender threads still blocked in the write of a subscriber evicted for it; guarded by this
+    private int stalledSenders;
+    private final Counter evictions;
+    private final Counter stalls;
+
+    public PostStreamHub(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${blog.stream.buffer-size:64}") int bufferSize,
+                         @Value("${blog.stream.max-subscribers:5000}") int maxSubscribers,
+                         @Value("${blog.stream.sender-threads:4}") int senderThreads,
+                         @Value("${blog.stream.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.senderThreads = Math.max(1, senderThreads);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.sender = new ThreadPoolExecutor(this.senderThreads, this.senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "post-stream-sender");
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("posts.stream.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        this.evictions = Counter.builder("posts.stream.evictions").register(meterRegistry);
+        this.stalls = Counter.builder("posts.stream.stalls").register(meterRegistry);
+    }
+
+    // =========================
+    // SUBSCRIBE
+    // =========================
+    public SseEmitter subscribeFeed() {
+        return register(new Subscriber(null));
+    }
+
+    public SseEmitter subscribePost(Long postId) {
+        return register(new Subscriber(postId));
+    }
+
+    private SseEmitter register(Subscriber subscriber) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many live subscribers");
+        }
+
+        if (subscriber.postId == null) {
+            feedSubscribers.add(subscriber);
+        } else {
+            postSubscribers.computeIfAbsent(subscriber.postId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+
+        // flushes headers so the client sees the stream open right away
+        subscriber.offer(SseEmitter.event().comment("connected").build());
+        return emitter;
+    }
+
+    // =========================
+    // PUBLISH
+    // =========================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEvent event) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialise {} for post {}: {}", event.type(), event.postId(), e.getMessage());
+            return;
+        }
+        Set<DataWithMediaType> message = SseEmitter.event()
+                .name(event.type().name().toLowerCase())
+                .data(json)
+                .build();
+
+        feedSubscribers.forEach(s -> s.offer(message));
+
+        Set<Subscriber> forPost = postSubscribers.get(event.postId());
+        if (forPost != null) {
+            forPost.forEach(s -> s.offer(message));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${blog.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        long now = System.nanoTime();
+        forEachSubscriber(s -> {
+            if (s.stalledAt(now)) {
+                s.evictStalled();
+            } else {
+                s.offer(ping);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        forEachSubscriber(Subscriber::close);
+        sender.shutdown();
+    }
+
+    private void forEachSubscriber(Consumer<Subscriber> action) {
+        feedSubscribers.forEach(action);
+        postSubscribers.values().forEach(set -> set.forEach(action));
+    }
+
+    // one extra thread per stalled send, so the healthy subscribers keep senderThreads
+    private synchronized void resizeSender(int stalledDelta) {
+        stalledSenders += stalledDelta;
+        int size = senderThreads + stalledSenders;
+        if (size > sender.getMaximumPoolSize()) {
+            sender.setMaximumPoolSize(size);
+            sender.setCorePoolSize(size);
+        } else {
+            sender.setCorePoolSize(size);
+            sender.setMaximumPoolSize(size);
+        }
+    }
+
+    private class Subscriber {
+        private final Long postId;
+        private final SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private final AtomicBoolean stalled = new AtomicBoolean();
+        private final AtomicBoolean extraThreadReleased = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closing;
+        // System.nanoTime() when the current send started, 0 while not sending
+        private volatile long sendingSince;
+
+        private Subscriber(Long postId) {
+            this.postId = postId;
+        }
+
+        void offer(Set<DataWithMediaType> message) {
+            if (removed.get()) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                logger.debug("Evicting slow SSE subscriber (post {})", postId);
+                evictions.increment();
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        // at most one drain task per subscriber is queued on the sender pool
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> message;
+                while (!closing && (message = queue.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    try {
+                        emitter.send(message);
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+                if (closing && completed.compareAndSet(false, true)) {
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                // client went away
+                remove();
+                return;
+            } finally {
+                if (stalled.get()) {
+                    releaseExtraThread();
+                }
+                draining.set(false);
+            }
+            if (closing ? !completed.get() : !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        boolean stalledAt(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeoutNanos;
+        }
+
+        // the client stopped reading: drop it and give the pool a thread while this one is blocked
+        void evictStalled() {
+            if (!stalled.compareAndSet(false, true)) {
+                return;
+            }
+            logger.debug("Evicting stalled SSE subscriber (post {})", postId);
+            stalls.increment();
+            resizeSender(1);
+            remove();
+            // the blocked write itself only returns once the connection times out or fails
+            closing = true;
+            if (sendingSince == 0) {
+                releaseExtraThread(); // the send returned meanwhile, after drain() last looked at stalled
+            }
+        }
+
+        private void releaseExtraThread() {
+            if (extraThreadReleased.compareAndSet(false, true)) {
+                resizeSender(-1);
+            }
+        }
+
+        // stops deliveries and completes the emitter on the drain side, behind any send in progress
+        void close() {
+            remove();
+            closing = true;
+            scheduleDrain();
+        }
+
+        void remove() {
+            if (!removed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriberCount.decrementAndGet();
+            queue.clear();
+            if (postId == null) {
+                feedSubscribers.remove(this);
+            } else {
+                postSubscribers.computeIfPresent(postId, (k, set) -> {
+                    set.remove(this);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -69,6 +70,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
 
+    // -------------------------------------------------------------
+    // 3b) ResponseStatusException - keep the status it was thrown with
+    //     (would otherwise fall into the RuntimeException 400 below)
+    // -------------------------------------------------------------
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<?> handleResponseStatus(ResponseStatusException ex) {
+        Map<String, Object> body = new HashMap<>();
+
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", ex.getStatusCode().value());
+        body.put("error", ex.getStatusCode().toString());
+        body.put("message", ex.getReason());
+
+        return ResponseEntity.status(ex.getStatusCode()).headers(ex.getHeaders()).body(body);
+    }
+
     // -------------------------------------------------------------
     // 4) IllegalArgument / Business logic errors
     // -------------------------------------------------------------
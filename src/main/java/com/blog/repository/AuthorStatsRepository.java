@@ -0,0 +1,62 @@
+package com.blog.repository;
+
+import com.blog.entity.AuthorStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+/**
+ * Adjustments are single UPDATEs that leave a missing row missing, so an
+ * author is aggregated once, on the first read of their stats, and only
+ * adjusted from then on.
+ */
+public interface AuthorStatsRepository extends JpaRepository<AuthorStats, Long> {
+
+    // counts the author's posts once; a concurrent first read simply loses the race
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO author_stats (author_id, posts, likes, comments) " +
+                   "SELECT :authorId, COUNT(*), COALESCE(SUM(p.likes), 0), COALESCE(SUM(p.comments), 0) " +
+                   "FROM posts p WHERE p.author_id = :authorId AND p.deleted_at IS NULL",
+           nativeQuery = true)
+    int initialize(@Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("UPDATE AuthorStats s SET s.posts = CASE WHEN s.posts + :delta < 0 THEN 0 ELSE s.posts + :delta END " +
+           "WHERE s.authorId = :authorId")
+    int adjustPosts(@Param("authorId") Long authorId, @Param("delta") int delta);
+
+    // by post id, so callers do not need to look up the author first
+    String OF_POST = "WHERE s.authorId = (SELECT p.author.id FROM Post p WHERE p.id = :postId)";
+
+    @Modifying
+    @Query("UPDATE AuthorStats s SET s.likes = CASE WHEN s.likes + :delta < 0 THEN 0 ELSE s.likes + :delta END " +
+           OF_POST)
+    int adjustLikesOfPost(@Param("postId") Long postId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE AuthorStats s SET s.comments = CASE WHEN s.comments + :delta < 0 THEN 0 ELSE s.comments + :delta END " +
+           OF_POST)
+    int adjustCommentsOfPost(@Param("postId") Long postId, @Param("delta") long delta);
+
+    String POST_LIKES = "(SELECT COALESCE(p.likes, 0) FROM posts p WHERE p.id = :postId)";
+    String POST_COMMENTS = "(SELECT COALESCE(p.comments, 0) FROM posts p WHERE p.id = :postId)";
+
+    // takes a post and everything it received off its author's totals. Run once, by whoever
+    // tombstoned it: native, because the tombstone is invisible to JPQL (see @Where on Post)
+    @Modifying
+    @Query(value = "UPDATE author_stats SET " +
+                   "posts = CASE WHEN posts > 0 THEN posts - 1 ELSE 0 END, " +
+                   "likes = CASE WHEN likes > " + POST_LIKES + " THEN likes - " + POST_LIKES + " ELSE 0 END, " +
+                   "comments = CASE WHEN comments > " + POST_COMMENTS + " THEN comments - " + POST_COMMENTS + " ELSE 0 END " +
+                   "WHERE author_id = (SELECT p.author_id FROM posts p WHERE p.id = :postId)",
+           nativeQuery = true)
+    int subtractPost(@Param("postId") Long postId);
+
+    // for bulk deletes: these authors are simply counted again on their next read
+    @Modifying
+    @Query("DELETE FROM AuthorStats s WHERE s.authorId IN :authorIds")
+    int forget(@Param("authorIds") Collection<Long> authorIds);
+}
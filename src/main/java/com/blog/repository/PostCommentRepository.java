@@ -1,22 +1,48 @@
 package com.blog.repository;
 
+import com.blog.dto.CommentDto;
 import com.blog.entity.PostComment;
 import com.blog.entity.Post;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PostCommentRepository extends JpaRepository<PostComment, Long> {
+
+    // comment rows with the author's username joined in, no entity or lazy proxy per row
+    String DTO_SELECT =
+            "SELECT new com.blog.dto.CommentDto(c.id, c.post.id, u.username, c.content, c.createdAt) " +
+            "FROM PostComment c LEFT JOIN c.user u ";
+
+    @EntityGraph(attributePaths = "user")
     List<PostComment> findByPostOrderByCreatedAtDesc(Post post);
     long countByPost(Post post);
 
-    @Modifying
-    @Transactional
-    void deleteByPost(Post post);
+    // newest first; ids grow with createdAt, so this reads idx_post_comments_post_id in order
+    @Query(DTO_SELECT + "WHERE c.post.id = :postId ORDER BY c.id DESC")
+    List<CommentDto> findDtosByPostId(@Param("postId") Long postId);
+
+    // keyset page, newest first; ids grow with createdAt so the id alone is the cursor
+    @Query(DTO_SELECT + "WHERE c.post.id = :postId AND c.id < :before ORDER BY c.id DESC")
+    List<CommentDto> findDtosBefore(@Param("postId") Long postId,
+                                    @Param("before") Long before,
+                                    Pageable limit);
+
+    // comment text of several posts at once, for the search index
+    @Query(DTO_SELECT + "WHERE c.post.id IN :postIds")
+    List<CommentDto> findDtosByPostIdIn(@Param("postIds") Collection<Long> postIds);
 
+    // one DELETE for every child of the given posts; a derived deleteBy... would load
+    // each row as an entity and remove it one statement at a time
     @Modifying
     @Transactional
-    void deleteAllByPost(Post post);
+    @Query("DELETE FROM PostComment c WHERE c.post.id IN :postIds")
+    int deleteByPostIdIn(@Param("postIds") Collection<Long> postIds);
 }
\ No newline at end of file
@@ -8,18 +8,37 @@ import jakarta.transaction.Transactional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
     Optional<PostLike> findByPostAndUser(Post post, User user);
     long countByPost(Post post);
 
+    // which of the given posts this user liked, one IN query for a whole feed page
+    @Query("SELECT l.post.id FROM PostLike l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    // idempotent like: the (post_id, user_id) unique key turns a repeat into a no-op (0 rows)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO post_likes (post_id, user_id, created_at) VALUES (:postId, :userId, NOW(6))",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("postId") Long postId, @Param("userId") Long userId);
+
     @Modifying
     @Transactional
-    void deleteByPost(Post post);
+    @Query("DELETE FROM PostLike l WHERE l.post.id = :postId AND l.user.id = :userId")
+    int deleteByPostIdAndUserId(@Param("postId") Long postId, @Param("userId") Long userId);
 
+    // one DELETE for every child of the given posts; a derived deleteBy... would load
+    // each row as an entity and remove it one statement at a time
     @Modifying
     @Transactional
-    void deleteAllByPost(Post post);
+    @Query("DELETE FROM PostLike l WHERE l.post.id IN :postIds")
+    int deleteByPostIdIn(@Param("postIds") Collection<Long> postIds);
 }
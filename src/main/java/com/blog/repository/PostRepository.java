@@ -1,15 +1,189 @@
 package com.blog.repository;
 
+import com.blog.dto.PostEngagement;
+import com.blog.dto.PostSummaryDto;
+import com.blog.dto.PostText;
 import com.blog.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
-    List<Post> findByAuthorId(Long authorId);
 
+    // feed card projection: only a prefix of content and of the image column is read,
+    // so legacy inline base64 payloads never leave MySQL
+    String SUMMARY_SELECT =
+            "SELECT new com.blog.dto.PostSummaryDto(" +
+            "p.id, p.title, SUBSTRING(p.content, 1, 200), a.id, a.username, " +
+            "p.createdAt, p.likes, p.comments, SUBSTRING(p.imageBase64, 1, 255)) " +
+            "FROM Post p LEFT JOIN p.author a ";
+
+    // author is LAZY on Post; every entity read that maps to PostDto fetches it in the same join
     // page-based query sorted by createdAt desc
+    @EntityGraph(attributePaths = "author")
     Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    @EntityGraph(attributePaths = "author")
+    Optional<Post> findWithAuthorById(Long id);
+
+    @Query(value = SUMMARY_SELECT + "ORDER BY p.createdAt DESC, p.id DESC",
+           countQuery = "SELECT COUNT(p) FROM Post p")
+    Page<PostSummaryDto> findSummaries(Pageable pageable);
+
+    // keyset (seek) queries for the cursor feed: no OFFSET and no COUNT(*)
+    @Query(SUMMARY_SELECT + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryDto> findFeedFirst(Pageable limit);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryDto> findFeedAfter(@Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable limit);
+
+    // author timeline, same keyset scheme as the feed; served by idx_posts_author_created
+    @Query(SUMMARY_SELECT + "WHERE p.author.id = :authorId ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryDto> findAuthorFeedFirst(@Param("authorId") Long authorId, Pageable limit);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE p.author.id = :authorId " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryDto> findAuthorFeedAfter(@Param("authorId") Long authorId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable limit);
+
+    // cards for a known set of ids (e.g. the trending ranking); callers restore their own order
+    @Query(SUMMARY_SELECT + "WHERE p.id IN :ids")
+    List<PostSummaryDto> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // recent posts that have any likes or comments, newest first
+    @Query("SELECT new com.blog.dto.PostEngagement(p.id, p.createdAt, p.likes, p.comments) FROM Post p " +
+           "WHERE p.createdAt >= :since AND (p.likes > 0 OR p.comments > 0) ORDER BY p.createdAt DESC")
+    List<PostEngagement> findEngagedSince(@Param("since") LocalDateTime since, Pageable limit);
+
+    // search index source, in id order so a build can resume after the last id it saw
+    String TEXT_SELECT = "SELECT new com.blog.dto.PostText(p.id, p.title, p.content) FROM Post p ";
+
+    @Query(TEXT_SELECT + "WHERE p.id = :id")
+    Optional<PostText> findTextById(@Param("id") Long id);
+
+    @Query(TEXT_SELECT + "WHERE p.id > :after ORDER BY p.id")
+    List<PostText> findTextsAfter(@Param("after") Long after, Pageable limit);
+
+    // posts edited, created or commented on since a point in time
+    @Query(TEXT_SELECT + "WHERE p.id > :after AND (p.updatedAt >= :since OR EXISTS (" +
+           "SELECT c.id FROM PostComment c WHERE c.post = p AND c.createdAt >= :since)) ORDER BY p.id")
+    List<PostText> findTextsChangedSince(@Param("since") LocalDateTime since,
+                                         @Param("after") Long after,
+                                         Pageable limit);
+
+    // image column alone, for serving legacy inline images without loading the post
+    @Query("SELECT p.imageBase64 FROM Post p WHERE p.id = :id")
+    Optional<String> findImageById(@Param("id") Long id);
+
+    // rows still carrying an inline base64 image (anything that is not an /uploads/ path)
+    String INLINE_IMAGE = "p.imageBase64 IS NOT NULL AND p.imageBase64 NOT LIKE '/%'";
+
+    @Query("SELECT p.id FROM Post p WHERE p.id > :after AND " + INLINE_IMAGE + " ORDER BY p.id")
+    List<Long> findInlineImageIds(@Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT COUNT(p) FROM Post p WHERE " + INLINE_IMAGE)
+    long countInlineImages();
+
+    // only replaces a still-inline value, so a concurrent edit or a second worker is never overwritten
+    @Modifying
+    @Transactional
+    @Query("UPDATE Post p SET p.imageBase64 = :ref WHERE p.id = :id AND " + INLINE_IMAGE)
+    int replaceInlineImage(@Param("id") Long id, @Param("ref") String ref);
+
+    // enough of the image column to recognise an upload URL, never a whole inline payload
+    @Query("SELECT SUBSTRING(p.imageBase64, 1, 255) FROM Post p WHERE p.id = :id")
+    Optional<String> findImageRefById(@Param("id") Long id);
+
+    // denormalised counters, read without materialising the post
+    @Query("SELECT p.likes FROM Post p WHERE p.id = :id")
+    Optional<Integer> findLikeCountById(@Param("id") Long id);
+
+    @Query("SELECT p.comments FROM Post p WHERE p.id = :id")
+    Optional<Integer> findCommentCountById(@Param("id") Long id);
+
+    // =========================
+    // DELETE (TOMBSTONES)
+    // =========================
+    @Query("SELECT DISTINCT p.author.id FROM Post p WHERE p.id IN :ids AND p.author IS NOT NULL")
+    List<Long> findAuthorIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // hides the posts from every read at once; PostPurger removes the rows later
+    @Modifying
+    @Transactional
+    @Query("UPDATE Post p SET p.deletedAt = :at WHERE p.id IN :ids AND p.deletedAt IS NULL")
+    int tombstone(@Param("ids") Collection<Long> ids, @Param("at") LocalDateTime at);
+
+    // tombstones are invisible to JPQL (see @Where on Post), so the purge goes native
+    @Query(value = "SELECT id FROM posts WHERE deleted_at IS NOT NULL ORDER BY deleted_at",
+           nativeQuery = true)
+    List<Long> findTombstonedIds(Pageable limit);
+
+    @Query(value = "SELECT COUNT(*) FROM posts WHERE deleted_at IS NOT NULL", nativeQuery = true)
+    long countTombstoned();
+
+    // row locks the batch, so two instances never purge (and release images of) the same post
+    @Query(value = "SELECT id FROM posts WHERE id IN (:ids) AND deleted_at IS NOT NULL FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockTombstoned(@Param("ids") Collection<Long> ids);
+
+    // upload references of purged posts, to release once the purge commits
+    @Query(value = "SELECT SUBSTRING(image_base64, 1, 255) FROM posts " +
+                   "WHERE id IN (:ids) AND image_base64 LIKE '/%'",
+           nativeQuery = true)
+    List<String> findImageRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // one statement, no entity loads and no cascades: children must be deleted first
+    @Modifying
+    @Query(value = "DELETE FROM posts WHERE id IN (:ids) AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purge(@Param("ids") Collection<Long> ids);
+
+    // posts of an author and/or created in [from, to); a null criterion matches everything
+    String DELETION_CRITERIA =
+            "(:authorId IS NULL OR p.author.id = :authorId) " +
+            "AND (CAST(:from AS LocalDateTime) IS NULL OR p.createdAt >= :from) " +
+            "AND (CAST(:to AS LocalDateTime) IS NULL OR p.createdAt < :to)";
+
+    @Query("SELECT p.id FROM Post p WHERE p.id > :after AND " + DELETION_CRITERIA + " ORDER BY p.id")
+    List<Long> findIdsMatching(@Param("after") Long after,
+                               @Param("authorId") Long authorId,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to,
+                               Pageable limit);
+
+    @Query("SELECT COUNT(p) FROM Post p WHERE " + DELETION_CRITERIA)
+    long countMatching(@Param("authorId") Long authorId,
+                       @Param("from") LocalDateTime from,
+                       @Param("to") LocalDateTime to);
+
+    // counters change in a single UPDATE so concurrent writers never lose increments
+    // and the rest of the row is not rewritten; never drops below zero
+    @Modifying
+    @Transactional
+    @Query("UPDATE Post p SET p.likes = CASE WHEN p.likes + :delta < 0 THEN 0 ELSE p.likes + :delta END " +
+           "WHERE p.id = :id")
+    int adjustLikes(@Param("id") Long id, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Post p SET p.comments = CASE WHEN p.comments + :delta < 0 THEN 0 ELSE p.comments + :delta END " +
+           "WHERE p.id = :id")
+    int adjustComments(@Param("id") Long id, @Param("delta") int delta);
 }
@@ -0,0 +1,35 @@
+package com.blog.repository;
+
+import com.blog.entity.StoredImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    // first upload inserts the row, every identical upload only bumps ref_count;
+    // the row lock taken here is held until the caller's transaction commits
+    @Modifying
+    @Query(value = "INSERT INTO stored_images (sha256, path, content_type, size_bytes, ref_count, created_at) " +
+                   "VALUES (:sha, :path, :contentType, :size, 1, NOW(6)) " +
+                   "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+           nativeQuery = true)
+    int acquire(@Param("sha") String sha256,
+                @Param("path") String path,
+                @Param("contentType") String contentType,
+                @Param("size") long sizeBytes);
+
+    @Query("SELECT i.path FROM StoredImage i WHERE i.sha256 = :sha")
+    Optional<String> findPathBySha256(@Param("sha") String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredImage i SET i.refCount = i.refCount - 1 WHERE i.sha256 = :sha AND i.refCount > 0")
+    int release(@Param("sha") String sha256);
+
+    @Modifying
+    @Query("DELETE FROM StoredImage i WHERE i.sha256 = :sha AND i.refCount <= 0")
+    int deleteIfUnreferenced(@Param("sha") String sha256);
+}
@@ -0,0 +1,229 @@
+package com.blog.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over documents identified by a long id, ranked with Okapi
+ * BM25. Each document is stored as its term frequencies, so it can be
+ * replaced or removed without re-reading the source text.
+ *
+ * Searches share a read lock and score only the postings of the query
+ * terms; writes take the write lock for the time it takes to swap one
+ * document's postings.
+ */
+public class Bm25Index {
+
+    // usual defaults: term frequency saturation and document length normalisation
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    public record Hit(long id, double score) {}
+
+    /**
+     * @param total number of documents matching at least one term
+     * @param hits  the requested window of them, best first
+     */
+    public record Hits(long total, List<Hit> hits) {}
+
+    private record Doc(Map<String, Integer> terms, int length) {}
+
+    private static final Comparator<Hit> BY_SCORE = Comparator
+            .comparingDouble(Hit::score)
+            .thenComparing(Hit::id, Comparator.reverseOrder());
+
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    // =========================
+    // WRITE
+    // =========================
+    // replaces whatever was indexed under id
+    public void put(long id, Map<String, Integer> terms) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            if (!terms.isEmpty()) {
+                index(id, new HashMap<>(terms));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // adds to what is indexed under id, e.g. the text of a new comment
+    public void add(long id, Map<String, Integer> terms) {
+        if (terms.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Doc existing = unindex(id);
+            Map<String, Integer> merged = existing == null ? new HashMap<>() : new HashMap<>(existing.terms());
+            terms.forEach((term, tf) -> merged.merge(term, tf, Integer::sum));
+            index(id, merged);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return unindex(id) != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(long id, Map<String, Integer> terms) {
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : terms.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(id, entry.getValue());
+            length += entry.getValue();
+        }
+        docs.put(id, new Doc(terms, length));
+        totalLength += length;
+    }
+
+    private Doc unindex(long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return null;
+        }
+        for (String term : doc.terms().keySet()) {
+            Map<Long, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= doc.length();
+        return doc;
+    }
+
+    // =========================
+    // READ
+    // =========================
+    public Hits search(Collection<String> terms, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) {
+                return new Hits(0, List.of());
+            }
+            double n = docs.size();
+            double avgLength = (double) totalLength / docs.size();
+
+            Map<Long, Double> scores = new HashMap<>();
+            // a term repeated in the query counts once
+            for (String term : new LinkedHashSet<>(terms)) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (n - list.size() + 0.5) / (list.size() + 0.5));
+                for (Map.Entry<Long, Integer> posting : list.entrySet()) {
+                    double tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * docs.get(posting.getKey()).length() / avgLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+            return new Hits(scores.size(), window(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // best offset+limit matches through a bounded min-heap, then the requested slice
+    private static List<Hit> window(Map<Long, Double> scores, int offset, int limit) {
+        int keep = offset + limit;
+        if (limit <= 0 || offset >= scores.size()) {
+            return List.of();
+        }
+        PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(keep, scores.size()) + 1, BY_SCORE);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.add(new Hit(entry.getKey(), entry.getValue()));
+            if (best.size() > keep) {
+                best.poll();
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(BY_SCORE.reversed());
+        return ranked.subList(Math.min(offset, ranked.size()), ranked.size());
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =========================
+    // SNAPSHOT
+    // =========================
+    // documents only; postings are rebuilt on load
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(docs.size());
+            for (Map.Entry<Long, Doc> doc : docs.entrySet()) {
+                out.writeLong(doc.getKey());
+                out.writeInt(doc.getValue().terms().size());
+                for (Map.Entry<String, Integer> term : doc.getValue().terms().entrySet()) {
+                    out.writeUTF(term.getKey());
+                    out.writeInt(term.getValue());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void readFrom(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                int size = in.readInt();
+                Map<String, Integer> terms = new HashMap<>(size * 2);
+                for (int j = 0; j < size; j++) {
+                    terms.put(in.readUTF(), in.readInt());
+                }
+                unindex(id);
+                index(id, terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
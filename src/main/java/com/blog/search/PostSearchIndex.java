@@ -0,0 +1,293 @@
+package com.blog.search;
+
+import com.blog.dto.CommentDto;
+import com.blog.dto.PostDto;
+import com.blog.dto.PostText;
+import com.blog.event.PostEvent;
+import com.blog.exception.ServiceBusyException;
+import com.blog.repository.PostCommentRepository;
+import com.blog.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text index of posts (title, content and, optionally, comments) for
+ * GET /api/posts/search, so searching never runs LIKE '%q%' over posts.
+ *
+ * On start the index is loaded from its last snapshot and only the posts
+ * changed since are re-read; without a snapshot it is built by streaming
+ * the posts table in id order on a background thread. Afterwards it is kept
+ * current from {@link PostEvent}s. Posts deleted while no instance was
+ * listening are dropped the first time they show up in a result.
+ */
+@Component
+public class PostSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x53524348; // "SRCH"
+    private static final int SNAPSHOT_VERSION = 1;
+    // title words count as much as this many body words
+    private static final int TITLE_WEIGHT = 2;
+    // re-read a little before the snapshot time to absorb clock differences between instances
+    private static final long CATCH_UP_MARGIN_MS = 60_000;
+    private static final long RETRY_MS = 30_000;
+
+    private final PostRepository postRepository;
+    private final PostCommentRepository commentRepository;
+    private final Bm25Index index = new Bm25Index();
+    private final boolean includeComments;
+    private final int chunkSize;
+    private final Path snapshotFile;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile long lastId;
+    private volatile Thread worker;
+
+    public PostSearchIndex(PostRepository postRepository,
+                           PostCommentRepository commentRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${blog.search.include-comments:false}") boolean includeComments,
+                           @Value("${blog.search.build.chunk-size:200}") int chunkSize,
+                           @Value("${blog.search.snapshot-file:/var/lib/blog/search.idx}") String snapshotFile) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.includeComments = includeComments;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.snapshotFile = snapshotFile == null || snapshotFile.isBlank() ? null : Paths.get(snapshotFile);
+        if (this.snapshotFile != null && !this.snapshotFile.isAbsolute()) {
+            // a relative path would land wherever the process happens to be started
+            throw new IllegalArgumentException("blog.search.snapshot-file must be an absolute path: " + snapshotFile);
+        }
+        Gauge.builder("search.index.documents", index, Bm25Index::size).register(meterRegistry);
+    }
+
+    // =========================
+    // SEARCH
+    // =========================
+    public Bm25Index.Hits search(String query, int offset, int limit) {
+        if (!ready) {
+            throw new ServiceBusyException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is being built", 10);
+        }
+        return index.search(Tokenizer.tokenize(query), offset, limit);
+    }
+
+    // for hits whose post no longer exists
+    public void remove(Long postId) {
+        if (index.remove(postId)) {
+            dirty.set(true);
+        }
+    }
+
+    // =========================
+    // STARTUP
+    // =========================
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread t = new Thread(this::run, "search-index");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        worker = t;
+        t.start();
+    }
+
+    private void run() {
+        LocalDateTime since = restore();
+        // a restored index answers straight away; the few posts changed since are re-read behind it
+        ready = since != null;
+        long started = System.currentTimeMillis();
+        while (true) {
+            try {
+                List<PostText> chunk;
+                while (!(chunk = since == null
+                        ? postRepository.findTextsAfter(lastId, PageRequest.of(0, chunkSize))
+                        : postRepository.findTextsChangedSince(since, lastId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                    indexChunk(chunk);
+                    lastId = chunk.get(chunk.size() - 1).id();
+                }
+                break;
+            } catch (RuntimeException e) {
+                // typically the database is not reachable yet; carry on from the last chunk
+                logger.warn("Search index stopped after post {}, retrying in {} ms", lastId, RETRY_MS, e);
+                try {
+                    Thread.sleep(RETRY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        ready = true;
+        dirty.set(true);
+        logger.info("Search index ready: {} posts ({} in {} ms)", index.size(),
+                since == null ? "built" : "caught up", System.currentTimeMillis() - started);
+    }
+
+    private void indexChunk(List<PostText> chunk) {
+        Map<Long, List<CommentDto>> comments = includeComments
+                ? commentRepository.findDtosByPostIdIn(chunk.stream().map(PostText::id).toList())
+                        .stream().collect(Collectors.groupingBy(CommentDto::getPostId))
+                : Map.of();
+        for (PostText post : chunk) {
+            index.put(post.id(), terms(post.title(), post.content(), comments.getOrDefault(post.id(), List.of())));
+        }
+    }
+
+    private static Map<String, Integer> terms(String title, String content, List<CommentDto> comments) {
+        Map<String, Integer> terms = new HashMap<>();
+        Tokenizer.count(title, TITLE_WEIGHT, terms);
+        Tokenizer.count(content, 1, terms);
+        for (CommentDto comment : comments) {
+            Tokenizer.count(comment.getContent(), 1, terms);
+        }
+        return terms;
+    }
+
+    // =========================
+    // WRITE-THROUGH
+    // =========================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEvent event) {
+        Long id = event.postId();
+        switch (event.type()) {
+            case POST_CREATED -> put((PostDto) event.payload());
+            case POST_UPDATED -> {
+                if (includeComments) {
+                    reindex(id); // the event does not carry the comments
+                } else {
+                    put((PostDto) event.payload());
+                }
+            }
+            case POST_DELETED -> index.remove(id);
+            case COMMENT_ADDED -> {
+                if (includeComments) {
+                    index.add(id, Tokenizer.termFrequencies(((CommentDto) event.payload()).getContent()));
+                }
+            }
+            case COMMENT_DELETED -> {
+                if (includeComments) {
+                    reindex(id);
+                }
+            }
+            default -> {
+                return; // counters are not indexed
+            }
+        }
+        dirty.set(true);
+    }
+
+    private void put(PostDto post) {
+        index.put(post.getId(), terms(post.getTitle(), post.getContent(), List.of()));
+    }
+
+    private void reindex(Long id) {
+        try {
+            postRepository.findTextById(id).ifPresentOrElse(
+                    post -> index.put(id, terms(post.title(), post.content(), commentRepository.findDtosByPostId(id))),
+                    () -> index.remove(id));
+        } catch (RuntimeException e) {
+            // the change is committed already; the entry stays as it was until the post changes again
+            logger.warn("Could not re-index post {}", id, e);
+        }
+    }
+
+    // =========================
+    // SNAPSHOT
+    // =========================
+    // time of the snapshot that was loaded, null when the index has to be built
+    private LocalDateTime restore() {
+        if (snapshotFile == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION
+                    || in.readBoolean() != includeComments) {
+                logger.info("Ignoring search snapshot {}: written with other settings", snapshotFile);
+                return null;
+            }
+            long takenAt = in.readLong();
+            index.readFrom(in);
+            logger.info("Loaded {} posts into the search index from {}", index.size(), snapshotFile);
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(takenAt - CATCH_UP_MARGIN_MS), ZoneId.systemDefault());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Could not read search snapshot {}, rebuilding", snapshotFile, e);
+            index.clear();
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${blog.search.snapshot-interval-ms:300000}",
+               initialDelayString = "${blog.search.snapshot-interval-ms:300000}")
+    public void snapshotIfChanged() {
+        if (ready && dirty.getAndSet(false)) {
+            snapshot();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = worker;
+        if (t != null) {
+            t.interrupt();
+        }
+        snapshot();
+    }
+
+    public synchronized void snapshot() {
+        // a partly built index must not be mistaken for a complete one on the next start
+        if (snapshotFile == null || !ready) {
+            return;
+        }
+        // taken before the documents are written: anything later is re-read on the next start
+        long takenAt = System.currentTimeMillis();
+        try {
+            Path dir = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, snapshotFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeBoolean(includeComments);
+                out.writeLong(takenAt);
+                index.writeTo(out);
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.warn("Could not write search snapshot {}", snapshotFile, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.blog.security;
+
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.security.Principal;
+import java.util.Collection;
+
+/**
+ * Principal set by JwtAuthenticationFilter. Carries the user's id from the
+ * token's userId claim so write paths can reference the user without
+ * looking it up by name.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+
+    public AuthenticatedUser(Long id, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    // the authenticated caller behind a controller's Principal argument
+    public static AuthenticatedUser from(Principal principal) {
+        if (principal instanceof Authentication auth
+                && auth.getPrincipal() instanceof AuthenticatedUser user
+                && user.getId() != null) {
+            return user;
+        }
+        throw new AuthenticationCredentialsNotFoundException("Authentication required");
+    }
+}
@@ -1,27 +1,55 @@
 package com.blog.security;
 
+import com.blog.cache.ExpiringLruCache;
 import com.blog.entity.User;
 import com.blog.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    // short-lived cache for live role checks; role changes show up within the ttl
+    private final ExpiringLruCache<String, UserDetails> cache;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${blog.security.user-details-cache-ttl-ms:30000}") long ttlMillis,
+                                    @Value("${blog.security.user-details-cache-size:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.cache = ttlMillis > 0 ? new ExpiringLruCache<>(maxEntries, ttlMillis) : null;
+        if (cache != null) {
+            cache.bindTo(meterRegistry, "userDetails");
+        }
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (cache != null) {
+            UserDetails cached = cache.get(username);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
         User u = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(u.getUsername())
-                .password(u.getPassword())
-                .roles(u.getRole().replace("ROLE_", ""))   // remove prefix if stored as ROLE_USER
-                .build();
+        // stored as ROLE_USER / ROLE_ADMIN
+        String role = JwtUtil.authority(u.getRole());
+        UserDetails details = new AuthenticatedUser(
+                u.getId(), u.getUsername(), u.getPassword(), List.of(new SimpleGrantedAuthority(role)));
+
+        if (cache != null) {
+            cache.put(username, details);
+        }
+        return details;
     }
 }
@@ -1,6 +1,7 @@
 package com.blog.security;
 
 import com.blog.security.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.security.SecurityException;
@@ -11,7 +12,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -19,11 +22,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * JwtAuthenticationFilter - validates JWT from Authorization: Bearer <token>
- * - uses JwtUtil to parse/validate tokens
- * - loads UserDetails and sets SecurityContext if token valid
+ * - uses JwtUtil to parse/validate tokens (once per request, repeat tokens hit its claims cache)
+ * - builds the principal from the token's roles claim and sets SecurityContext if token valid;
+ *   the users table is only read for tokens without roles or when blog.security.live-roles=true
  * - logs detailed reasons for token rejection (expired, signature invalid, parse error)
  */
 @Component
@@ -35,6 +40,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
 
+    @Value("${blog.security.live-roles:false}")
+    private boolean liveRoles;
+
     @Override
     protected void doFilterInternal(HttpServletRequest req,
                                     HttpServletResponse res,
@@ -42,13 +50,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = req.getHeader("Authorization");
         String username = null;
-        String token = null;
+        Claims claims = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+            String token = authHeader.substring(7);
             try {
-                // extract username (this will also throw if token invalid/expired)
-                username = jwtUtil.getUsernameFromToken(token);
+                // verifies signature + expiration and extracts the subject in one pass
+                claims = jwtUtil.parseToken(token);
+                username = claims.getSubject();
             } catch (ExpiredJwtException e) {
                 logger.warn("JWT expired for request [{}]: {}", req.getRequestURI(), e.getMessage());
             } catch (SecurityException e) {
@@ -71,21 +80,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        // If we got a username and no authentication yet, validate token and set Authentication
+        // If we got a username (token already verified above) and no authentication yet, set Authentication
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                // validate token (signature + expiration)
-                boolean valid = jwtUtil.validateToken(token);
-                if (valid) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    UsernamePasswordAuthenticationToken authenticationToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                    logger.debug("JWT validated and security context set for user '{}' on request [{}]", username, req.getRequestURI());
-                } else {
-                    logger.warn("JWT validation returned false for request [{}] (token may be invalid/expired)", req.getRequestURI());
-                }
+                UserDetails userDetails = principalFrom(claims);
+                UsernamePasswordAuthenticationToken authenticationToken =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
+                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                logger.debug("JWT validated and security context set for user '{}' on request [{}]", username, req.getRequestURI());
             } catch (Exception e) {
                 // if loading user or setting authentication fails, log and continue without authentication
                 logger.warn("Failed to set authentication for user '{}' on request [{}]: {}", username, req.getRequestURI(), e.getMessage());
@@ -95,4 +98,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // proceed with the filter chain
         chain.doFilter(req, res);
     }
+
+    private UserDetails principalFrom(Claims claims) {
+        List<?> roles = claims.get(JwtUtil.ROLES_CLAIM, List.class);
+        if (liveRoles || roles == null) {
+            // tokens issued before roles were embedded, or deployments that want live role checks
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        return new AuthenticatedUser(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                "",
+                // tokens issued before the claim was normalised may still carry "ADMIN"
+                roles.stream().map(r -> new SimpleGrantedAuthority(JwtUtil.authority(r.toString()))).toList());
+    }
 }
@@ -2,45 +2,84 @@ package com.blog.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.blog.cache.ExpiringLruCache;
 import com.blog.entity.User;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 
 @Component
 public class JwtUtil {
 
+    // granted authorities, e.g. ["ROLE_USER"], so requests can be authorised without a users lookup
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    @Value("${jwt.claims-cache.max-entries:10000}")
+    private int claimsCacheSize;
+
+    private final MeterRegistry meterRegistry;
+
+    // built once: the key and parser are immutable and thread-safe
+    private Key key;
+    private JwtParser parser;
+
+    // verified claims by SHA-256 of the token, dropped when the token expires
+    private ExpiringLruCache<String, Claims> verifiedClaims;
+
+    public JwtUtil(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verifiedClaims = new ExpiringLruCache<>(claimsCacheSize, 0);
+        verifiedClaims.bindTo(meterRegistry, "jwtClaims");
+    }
+
     // Generate token with expiryMillis (milliseconds)
     public String generateToken(User user, long expiryMillis) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + expiryMillis);
-        Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
 
         return Jwts.builder()
             .setSubject(user.getUsername())
             .claim("userId", user.getId()) // 🔥 THIS IS CRITICAL
+            .claim(ROLES_CLAIM, List.of(authority(user.getRole() != null ? user.getRole() : "ROLE_USER")))
             .setIssuedAt(now)
             .setExpiration(exp)
             .signWith(key, SignatureAlgorithm.HS256)
             .compact();
     }
 
+    // roles may be stored as "ADMIN" or "ROLE_ADMIN"; hasRole('ADMIN') expects the prefixed form
+    public static String authority(String role) {
+        return role.startsWith("ROLE_") ? role : "ROLE_" + role;
+    }
+
     // Parse username
     public String getUsernameFromToken(String token) {
-        return parseClaims(token).getSubject();
+        return parseToken(token).getSubject();
     }
 
     // Validate token (signature + expiration)
     public boolean validateToken(String token) {
         try {
-            parseClaims(token);
+            parseToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException ex) {
             // caller can log details
@@ -48,12 +87,31 @@ public class JwtUtil {
         }
     }
 
-    private Claims parseClaims(String token) {
-        Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verified claims of the token. A token seen before is answered from the
+     * cache without redoing the HMAC check; throws JwtException like the
+     * parser when the token is invalid or expired.
+     */
+    public Claims parseToken(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedClaims.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(digest, claims, claims.getExpiration().getTime());
+        }
+        return claims;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
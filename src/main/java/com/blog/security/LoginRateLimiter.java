@@ -0,0 +1,81 @@
+package com.blog.security;
+
+import com.blog.cache.ExpiringLruCache;
+import com.blog.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * In-memory token buckets per client IP and per username, checked before
+ * any password hashing happens. Idle buckets are forgotten after ten
+ * minutes, by which time they would have refilled anyway.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final long IDLE_TTL_MS = 10 * 60 * 1000L;
+
+    private final ExpiringLruCache<String, TokenBucket> buckets;
+    private final int ipBurst;
+    private final double ipPerSecond;
+    private final int userBurst;
+    private final double userPerSecond;
+    private final Counter limited;
+
+    public LoginRateLimiter(MeterRegistry meterRegistry,
+                            @Value("${blog.security.login.ip-burst:20}") int ipBurst,
+                            @Value("${blog.security.login.ip-per-minute:30}") int ipPerMinute,
+                            @Value("${blog.security.login.user-burst:5}") int userBurst,
+                            @Value("${blog.security.login.user-per-minute:10}") int userPerMinute,
+                            @Value("${blog.security.login.max-tracked:100000}") int maxTracked) {
+        this.buckets = new ExpiringLruCache<>(maxTracked, IDLE_TTL_MS);
+        this.ipBurst = ipBurst;
+        this.ipPerSecond = ipPerMinute / 60.0;
+        this.userBurst = userBurst;
+        this.userPerSecond = userPerMinute / 60.0;
+        this.limited = Counter.builder("auth.login.limited").register(meterRegistry);
+    }
+
+    public void check(String clientIp, String username) {
+        TokenBucket ip = buckets.computeIfAbsent("ip:" + clientIp, k -> new TokenBucket(ipBurst, ipPerSecond));
+        long wait = ip.tryConsume();
+        if (wait == 0 && username != null) {
+            String key = "user:" + username.toLowerCase(Locale.ROOT);
+            wait = buckets.computeIfAbsent(key, k -> new TokenBucket(userBurst, userPerSecond)).tryConsume();
+        }
+        if (wait > 0) {
+            limited.increment();
+            throw new ServiceBusyException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", wait);
+        }
+    }
+
+    static final class TokenBucket {
+        private final int capacity;
+        private final double refillPerSecond;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+            this.tokens = capacity;
+        }
+
+        // 0 when a token was taken, otherwise seconds until one is available
+        synchronized long tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / 1e9 * refillPerSecond);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerSecond));
+        }
+    }
+}
@@ -6,7 +6,7 @@ import com.blog.entity.User;
 
 public interface AuthService {
 
-    AuthResponse login(AuthRequest request);
+    AuthResponse login(AuthRequest request, String clientIp);
 
     User register(User user);
 
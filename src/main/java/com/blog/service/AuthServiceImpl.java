@@ -5,8 +5,9 @@ import com.blog.dto.AuthResponse;
 import com.blog.entity.User;
 import com.blog.repository.UserRepository;
 import com.blog.security.JwtUtil;
+import com.blog.security.LoginRateLimiter;
+import com.blog.security.PasswordHashingService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -14,11 +15,14 @@ import org.springframework.stereotype.Service;
 public class AuthServiceImpl implements AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder encoder;
+    private final PasswordHashingService encoder;
+    private final LoginRateLimiter rateLimiter;
     private final JwtUtil jwtUtil;
 
     @Override
-    public AuthResponse login(AuthRequest request) {
+    public AuthResponse login(AuthRequest request, String clientIp) {
+        // cheap checks first: throttled attempts never reach BCrypt
+        rateLimiter.check(clientIp, request.getUsername());
 
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("Invalid credentials"));
@@ -36,7 +40,7 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public User register(User user) {
         // 1. Check if username already exists to provide a clear error
-        if (userRepository.findByUsername(user.getUsername()).isPresent()) {
+        if (userRepository.existsByUsername(user.getUsername())) {
             throw new RuntimeException("Username is already taken");
         }
 
@@ -0,0 +1,192 @@
+package com.blog.service;
+
+import com.blog.cache.ExpiringLruCache;
+import com.blog.dto.BulkDeleteRequest;
+import com.blog.exception.ServiceBusyException;
+import com.blog.repository.PostRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admin bulk deletes (by id list, by author, by creation date range) run as
+ * background jobs, one at a time.
+ *
+ * A job walks the matching posts in id order and deletes them in chunks of
+ * chunk-size, each chunk in its own transaction with a single UPDATE that
+ * tombstones it (see {@link PostService#deletePosts}; {@link PostPurger}
+ * removes the rows later), pausing between chunks. No transaction ever
+ * holds more than one chunk's locks, and a failed job leaves whatever it
+ * had not reached untouched. Progress is polled by job
+ * id; finished jobs are remembered for a day.
+ */
+@Component
+public class BulkPostDeletion {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkPostDeletion.class);
+
+    private static final int MAX_IDS = 10_000;
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final BulkDeleteRequest request;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final AtomicLong deleted = new AtomicLong();
+        volatile State state = State.QUEUED;
+        volatile long total = -1;
+        volatile long lastId;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(BulkDeleteRequest request) {
+            this.request = request;
+        }
+    }
+
+    private final PostService postService;
+    private final PostRepository postRepository;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final ThreadPoolExecutor executor;
+    private final ExpiringLruCache<String, Job> jobs = new ExpiringLruCache<>(100, TimeUnit.DAYS.toMillis(1));
+    private final Counter deletedPosts;
+
+    public BulkPostDeletion(PostService postService,
+                            PostRepository postRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${blog.posts.bulk-delete.chunk-size:500}") int chunkSize,
+                            @Value("${blog.posts.bulk-delete.pause-ms:200}") long pauseMillis,
+                            @Value("${blog.posts.bulk-delete.max-queued:10}") int maxQueued) {
+        this.postService = postService;
+        this.postRepository = postRepository;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMillis = pauseMillis;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)), r -> {
+                    Thread t = new Thread(r, "bulk-post-deletion");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.deletedPosts = Counter.builder("posts.bulk.deleted").register(meterRegistry);
+    }
+
+    // =========================
+    // SUBMIT
+    // =========================
+    public Map<String, Object> submit(BulkDeleteRequest request) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byCriteria = request.getAuthorId() != null || request.getFrom() != null || request.getTo() != null;
+        if (byIds == byCriteria) {
+            throw new IllegalArgumentException("Give either ids, or authorId and/or from/to");
+        }
+        if (byIds && request.getIds().size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids per request");
+        }
+
+        Job job = new Job(request);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ServiceBusyException(HttpStatus.SERVICE_UNAVAILABLE, "Too many bulk deletes queued", 60);
+        }
+        return progress(job);
+    }
+
+    public Optional<Map<String, Object>> progress(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(BulkPostDeletion::progress);
+    }
+
+    // =========================
+    // JOB
+    // =========================
+    private void run(Job job) {
+        job.state = State.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        BulkDeleteRequest request = job.request;
+        try {
+            if (request.getIds() != null && !request.getIds().isEmpty()) {
+                List<Long> ids = new ArrayList<>(new TreeSet<>(request.getIds()));
+                job.total = ids.size();
+                for (int from = 0; from < ids.size(); from += chunkSize) {
+                    List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+                    deleteChunk(job, chunk);
+                }
+            } else {
+                job.total = postRepository.countMatching(request.getAuthorId(), request.getFrom(), request.getTo());
+                List<Long> chunk;
+                while (!(chunk = postRepository.findIdsMatching(job.lastId, request.getAuthorId(),
+                        request.getFrom(), request.getTo(), PageRequest.of(0, chunkSize))).isEmpty()) {
+                    deleteChunk(job, chunk);
+                }
+            }
+            job.state = State.COMPLETED;
+            logger.info("Bulk delete {} done: {} posts deleted", job.id, job.deleted.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.state = State.FAILED;
+            job.error = "Interrupted";
+        } catch (RuntimeException e) {
+            logger.warn("Bulk delete {} stopped after post {}", job.id, job.lastId, e);
+            job.state = State.FAILED;
+            job.error = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void deleteChunk(Job job, List<Long> chunk) throws InterruptedException {
+        int deleted = postService.deletePosts(chunk);
+        job.deleted.addAndGet(deleted);
+        job.lastId = chunk.get(chunk.size() - 1);
+        deletedPosts.increment(deleted);
+        Thread.sleep(pauseMillis);
+    }
+
+    private static Map<String, Object> progress(Job job) {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("id", job.id);
+        progress.put("state", job.state);
+        progress.put("ids", job.request.getIds() == null ? null : job.request.getIds().size());
+        progress.put("authorId", job.request.getAuthorId());
+        progress.put("from", job.request.getFrom());
+        progress.put("to", job.request.getTo());
+        progress.put("total", job.total < 0 ? null : job.total);
+        progress.put("deleted", job.deleted.get());
+        progress.put("lastPostId", job.lastId);
+        progress.put("submittedAt", job.submittedAt);
+        progress.put("startedAt", job.startedAt);
+        progress.put("finishedAt", job.finishedAt);
+        progress.put("error", job.error);
+        return progress;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -1,13 +1,19 @@
 package com.blog.service;
 
 import com.blog.dto.CommentDto;
+import com.blog.dto.CursorPage;
 import java.util.List;
 
 public interface CommentService {
 
     List<CommentDto> getComments(Long postId);
 
-    CommentDto addComment(Long postId, String username, String content);
+    // newest first; before is the id of the last comment already shown, null for the first page
+    CursorPage<CommentDto> getComments(Long postId, Long before, int limit);
+
+    long getCommentCount(Long postId);
+
+    CommentDto addComment(Long postId, Long userId, String username, String content);
 
     void deleteComment(Long commentId, String username);
 }
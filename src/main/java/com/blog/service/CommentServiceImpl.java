@@ -1,16 +1,21 @@
 package com.blog.service;
 
 import com.blog.dto.CommentDto;
+import com.blog.dto.CursorPage;
+import com.blog.dto.PostDto;
 import com.blog.entity.Post;
+import com.blog.event.PostEvent;
 import com.blog.entity.PostComment;
-import com.blog.entity.User;
 import com.blog.exception.ResourceNotFoundException;
+import com.blog.repository.AuthorStatsRepository;
 import com.blog.repository.PostCommentRepository;
 import com.blog.repository.PostRepository;
 import com.blog.repository.UserRepository;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,61 +28,78 @@ public class CommentServiceImpl implements CommentService {
     private final PostRepository postRepo;
     private final UserRepository userRepo;
     private final PostCommentRepository commentRepo;
+    private final AuthorStatsRepository authorStats;
+    private final ApplicationEventPublisher events;
+    private final PostCache postCache;
+
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Override
     @Transactional
     public List<CommentDto> getComments(Long postId) {
-        Post post = postRepo.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-
-        return commentRepo.findByPostOrderByCreatedAtDesc(post)
-                .stream()
-                .map(c -> CommentDto.builder()
-                        .id(c.getId())
-                        .postId(post.getId())
-                        .authorUsername(c.getUser().getUsername()) // SAFE now
-                        .content(c.getContent())
-                        .createdAt(c.getCreatedAt())
-                        .build()
-                )
-                .toList();
+        requirePost(postId);
+        return commentRepo.findDtosByPostId(postId);
     }
 
     @Override
     @Transactional
-    public CommentDto addComment(Long postId, String username, String content) {
-        Post post = postRepo.findById(postId)
+    public CursorPage<CommentDto> getComments(Long postId, Long before, int limit) {
+        requirePost(postId);
+
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<CommentDto> rows = commentRepo.findDtosBefore(
+                postId, before == null ? Long.MAX_VALUE : before, PageRequest.of(0, size + 1));
+
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+
+        return CursorPage.<CommentDto>builder()
+                .content(rows)
+                .nextCursor(hasNext ? String.valueOf(rows.get(rows.size() - 1).getId()) : null)
+                .hasNext(hasNext)
+                .size(size)
+                .build();
+    }
+
+    @Override
+    public long getCommentCount(Long postId) {
+        PostDto cached = postCache.peek(postId);
+        if (cached != null) {
+            return cached.getComments();
+        }
+        return postRepo.findCommentCountById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+    }
 
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    @Override
+    @Transactional
+    public CommentDto addComment(Long postId, Long userId, String username, String content) {
+        requirePost(postId);
 
+        // user id comes from the token; a reference proxy avoids a users SELECT
         PostComment comment = PostComment.builder()
-                .post(post)
-                .user(user)
+                .post(postRepo.getReferenceById(postId))
+                .user(userRepo.getReferenceById(userId))
                 .content(content)
                 .build();
 
         PostComment saved = commentRepo.save(comment);
 
-        // Ensure we don't hit a NullPointerException if post.comments is null
-     // SAFE: Handle null and calculate new count
-        Integer current = post.getComments();
-        post.setComments((current == null ? 0 : current) + 1);
-
-        // Save the post
-
-        
-        // Save the post so the database updates the count column
-        postRepo.save(post); 
+        // single UPDATE ... SET comments = comments + 1, no read-modify-write of the post row
+        postRepo.adjustComments(postId, 1);
+        authorStats.adjustCommentsOfPost(postId, 1);
 
-        return CommentDto.builder()
+        CommentDto added = CommentDto.builder()
                 .id(saved.getId())
-                .postId(post.getId())
-                .authorUsername(user.getUsername())
+                .postId(postId)
+                .authorUsername(username)
                 .content(saved.getContent())
                 .createdAt(saved.getCreatedAt())
                 .build();
+        events.publishEvent(PostEvent.commentAdded(added));
+        return added;
     }
 
     @Override
@@ -91,23 +113,20 @@ public class CommentServiceImpl implements CommentService {
             throw new RuntimeException("Not authorized to delete this comment");
         }
 
+        // id of the lazy proxy is available without loading the post
         Post post = comment.getPost();
-        if (post == null) {
-            // still delete the comment but guard
-            commentRepo.delete(comment);
-            return;
-        }
-
-        // delete the comment
         commentRepo.delete(comment);
 
-        // decrement comment count safely and save post
-        int current = post.getComments() == 0 ? 0 : post.getComments();
-        if (current > 0) {
-            post.setComments(current - 1);
-        } else {
-            post.setComments(0);
+        if (post != null) {
+            postRepo.adjustComments(post.getId(), -1);
+            authorStats.adjustCommentsOfPost(post.getId(), -1);
+            events.publishEvent(PostEvent.commentDeleted(post.getId(), commentId));
+        }
+    }
+
+    private void requirePost(Long postId) {
+        if (!postRepo.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found");
         }
-        postRepo.save(post);
     }
 }
@@ -0,0 +1,214 @@
+package com.blog.service;
+
+import com.blog.dto.CursorPage;
+import com.blog.dto.FeedCursor;
+import com.blog.dto.PostSummaryDto;
+import com.blog.event.FeedVersion;
+import com.blog.event.PostEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ready-to-write JSON for the first pages of the feed, which is what
+ * almost every visitor asks for: GET /api/posts pages 0..N-1 at the
+ * default size, and the first ?after= slice.
+ *
+ * The snapshot is labelled with the {@link FeedVersion} ETag read before
+ * it was built and is refreshed on the first read after the version moves.
+ * Like and comment events only patch the counters of the rows already held
+ * and re-serialise them; created, edited or deleted posts reload the rows
+ * with one query, and so does any change the version reports without an
+ * event here (another instance's writes, background rewrites).
+ */
+@Component
+public class FeedSnapshot {
+
+    /**
+     * @param etag       feed version the bytes correspond to (or are newer than)
+     * @param pages      PageImpl JSON of GET /api/posts?page=i&size=pageSize
+     * @param firstSlice CursorPage JSON of GET /api/posts?after=&size=pageSize
+     */
+    public record Snapshot(String etag, List<byte[]> pages, byte[] firstSlice) {}
+
+    private final PostService postService;
+    private final FeedVersion feedVersion;
+    private final LikeCountBuffer likeCounts;
+    private final ObjectMapper objectMapper;
+    private final int pageCount;
+    private final int pageSize;
+    private final Counter rebuilds;
+    private final Counter reloads;
+
+    // counter changes not yet applied to rows, and whether rows must be re-read instead
+    private final Queue<PostEvent> pendingCounters = new ConcurrentLinkedQueue<>();
+    private final AtomicLong counterEvents = new AtomicLong();
+    private volatile boolean reload = true;
+    // FeedVersion.untrackedChanges() as of the last reload
+    private long untrackedSeen = -1;
+
+    // guarded by this
+    private List<PostSummaryDto> rows = List.of();
+    private boolean moreRows;
+    private long total;
+    private volatile Snapshot current;
+
+    public FeedSnapshot(PostService postService,
+                        FeedVersion feedVersion,
+                        LikeCountBuffer likeCounts,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${blog.feed.snapshot.pages:3}") int pageCount,
+                        @Value("${blog.feed.snapshot.page-size:10}") int pageSize) {
+        this.postService = postService;
+        this.feedVersion = feedVersion;
+        this.likeCounts = likeCounts;
+        this.objectMapper = objectMapper;
+        this.pageSize = Math.max(1, pageSize);
+        // all pages come from one feed query, which is capped at MAX_FEED_SIZE rows
+        this.pageCount = Math.max(0, Math.min(pageCount, PostServiceImpl.MAX_FEED_SIZE / this.pageSize));
+        this.rebuilds = Counter.builder("feed.snapshot.rebuilds").tag("kind", "patch").register(meterRegistry);
+        this.reloads = Counter.builder("feed.snapshot.rebuilds").tag("kind", "reload").register(meterRegistry);
+    }
+
+    public boolean coversPage(int page, int size) {
+        return page >= 0 && page < pageCount && size == pageSize;
+    }
+
+    public boolean coversFirstSlice(String after, int size, boolean withTotal) {
+        return pageCount > 0 && (after == null || after.isBlank()) && size == pageSize && !withTotal;
+    }
+
+    // =========================
+    // READ
+    // =========================
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.etag().equals(feedVersion.etag())) {
+            return snapshot;
+        }
+        return refresh();
+    }
+
+    private synchronized Snapshot refresh() {
+        // read first: anything that happens from here on moves the version past this label
+        String etag = feedVersion.etag();
+        if (current != null && current.etag().equals(etag)) {
+            return current; // another thread just rebuilt it
+        }
+
+        long untracked = feedVersion.untrackedChanges();
+        if (reload || untracked != untrackedSeen) {
+            reload = false;
+            untrackedSeen = untracked;
+            pendingCounters.clear();
+            long seen = counterEvents.get();
+            CursorPage<PostSummaryDto> head;
+            try {
+                // not across a like-counter flush commit, which would count its deltas twice
+                head = likeCounts.consistentRead(() -> postService.getFeed(null, pageCount * pageSize, true));
+            } catch (RuntimeException e) {
+                reload = true;
+                untrackedSeen = -1;
+                throw e;
+            }
+            rows = new ArrayList<>(head.getContent());
+            moreRows = head.isHasNext();
+            total = head.getTotalElements() == null ? rows.size() : head.getTotalElements();
+            // a counter change that raced the query may or may not be in it: re-read next time
+            if (counterEvents.get() != seen) {
+                reload = true;
+            }
+            reloads.increment();
+        } else {
+            PostEvent event;
+            while ((event = pendingCounters.poll()) != null) {
+                patch(event);
+            }
+            rebuilds.increment();
+        }
+
+        current = new Snapshot(etag, serializePages(), serializeFirstSlice());
+        return current;
+    }
+
+    private void patch(PostEvent event) {
+        for (PostSummaryDto row : rows) {
+            if (row.getId().equals(event.postId())) {
+                if (event.type() == PostEvent.Type.LIKES_CHANGED) {
+                    row.setLikes(Math.max(0, row.getLikes() + event.delta()));
+                } else {
+                    row.setComments(Math.max(0, row.getComments() + event.delta()));
+                }
+                return;
+            }
+        }
+    }
+
+    // =========================
+    // WRITE-THROUGH
+    // =========================
+    // ordered before FeedVersion's listener, so a change is queued before the version moves
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEvent event) {
+        switch (event.type()) {
+            case LIKES_CHANGED, COMMENT_ADDED, COMMENT_DELETED -> {
+                pendingCounters.add(event);
+                counterEvents.incrementAndGet();
+            }
+            default -> reload = true;
+        }
+    }
+
+    // =========================
+    // SERIALISATION
+    // =========================
+    // same shapes the controller would produce through Jackson for these requests
+    private List<byte[]> serializePages() {
+        List<byte[]> pages = new ArrayList<>(pageCount);
+        for (int page = 0; page < pageCount; page++) {
+            int from = Math.min(rows.size(), page * pageSize);
+            int to = Math.min(rows.size(), from + pageSize);
+            pages.add(write(new PageImpl<>(rows.subList(from, to), PageRequest.of(page, pageSize), total)));
+        }
+        return pages;
+    }
+
+    private byte[] serializeFirstSlice() {
+        List<PostSummaryDto> content = rows.subList(0, Math.min(rows.size(), pageSize));
+        boolean hasNext = rows.size() > pageSize || moreRows;
+        String nextCursor = null;
+        if (hasNext && !content.isEmpty()) {
+            PostSummaryDto last = content.get(content.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return write(CursorPage.<PostSummaryDto>builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .size(pageSize)
+                .build());
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise feed snapshot", e);
+        }
+    }
+}
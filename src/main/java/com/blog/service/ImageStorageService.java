@@ -0,0 +1,350 @@
+package com.blog.service;
+
+import com.blog.repository.StoredImageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed upload storage.
+ *
+ * Uploads are streamed through a SHA-256 digest into a temp file and then
+ * moved to {@code <dir>/ab/cd/<sha256>.<ext>}. Identical bytes end up in
+ * the same file: stored_images keeps one row per hash with the number of
+ * posts referencing it, and the file is only removed when that reaches 0.
+ *
+ * The ref_count row lock is held while the file is moved into place or
+ * deleted, so a store and a release of the same hash never interleave,
+ * even across replicas sharing the volume.
+ *
+ * Only JPEG, PNG, GIF and WebP are accepted, recognised by their leading
+ * bytes; the extension (and so the Content-Type the file is served with)
+ * comes from that, never from the client's file name or declared type.
+ */
+@Service
+public class ImageStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+
+    public static final String URL_PREFIX = "/uploads/";
+
+    private static final Pattern STORED_URL =
+            Pattern.compile("^/uploads/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})\\.[a-z0-9]+$");
+    private static final Pattern STORED_NAME = Pattern.compile("^[0-9a-f]{64}\\.[a-z0-9]+$");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+    // long enough for the WebP signature, the longest one checked
+    private static final int SIGNATURE_BYTES = 12;
+
+    private final StoredImageRepository storedImages;
+    private final TransactionTemplate ownTx;
+    private final Path root;
+    private final Path tmp;
+    private final Counter storedNew;
+    private final Counter storedDuplicate;
+
+    public ImageStorageService(StoredImageRepository storedImages,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${blog.uploads.dir:/uploads}") String dir) {
+        this.storedImages = storedImages;
+        // ref counts commit on their own so the row lock is not held for the whole post transaction
+        this.ownTx = new TransactionTemplate(transactionManager);
+        this.ownTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        this.tmp = root.resolve(".tmp");
+        this.storedNew = Counter.builder("uploads.stored").tag("result", "new").register(meterRegistry);
+        this.storedDuplicate = Counter.builder("uploads.stored").tag("result", "duplicate").register(meterRegistry);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // =========================
+    // STORE
+    // =========================
+    /**
+     * Stores the upload (or takes another reference on an identical one) and
+     * returns its URL. When called inside a transaction that later rolls back
+     * the reference is given back again.
+     *
+     * @throws IllegalArgumentException if the bytes are not a JPEG, PNG, GIF or WebP image
+     */
+    public String store(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return store(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save image file!", e);
+        }
+    }
+
+    /**
+     * Same as {@link #store(MultipartFile)} for bytes that did not arrive as
+     * an upload.
+     */
+    public String store(InputStream content) {
+        BufferedInputStream in = new BufferedInputStream(content);
+        String extension;
+        try {
+            in.mark(SIGNATURE_BYTES);
+            extension = extensionOf(in.readNBytes(SIGNATURE_BYTES));
+            in.reset();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save image file!", e);
+        }
+        if (extension == null) {
+            throw new IllegalArgumentException("Unsupported image type, expected JPEG, PNG, GIF or WebP");
+        }
+        return store(in, extension, CONTENT_TYPES.get(extension));
+    }
+
+    /**
+     * The Content-Type to serve a stored file with, from its extension; empty
+     * for anything that is not one of the accepted image types.
+     */
+    public static Optional<String> contentTypeOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? Optional.empty()
+                : Optional.ofNullable(CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT)));
+    }
+
+    private String store(InputStream content, String extension, String contentType) {
+        Path staged = null;
+        try {
+            Files.createDirectories(tmp);
+            staged = Files.createTempFile(tmp, "upload-", ".part");
+
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, staged, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha = HexFormat.of().formatHex(digest.digest());
+            String relative = sha.substring(0, 2) + "/" + sha.substring(2, 4) + "/" + sha + "." + extension;
+
+            String url = URL_PREFIX + placeFile(staged, sha, relative, contentType, size);
+            releaseOnRollback(url);
+            return url;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save image file!", e);
+        } finally {
+            deleteQuietly(staged);
+        }
+    }
+
+    private String placeFile(Path staged, String sha, String relative, String contentType, long size) {
+        return ownTx.execute(status -> {
+            storedImages.acquire(sha, relative, contentType, size);
+            // an earlier upload of the same bytes may have stored it under another extension
+            String path = storedImages.findPathBySha256(sha).orElse(relative);
+            Path target = resolve(path);
+            try {
+                if (Files.exists(target)) {
+                    storedDuplicate.increment();
+                } else {
+                    Files.createDirectories(target.getParent());
+                    moveIntoPlace(staged, target);
+                    storedNew.increment();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not save image file!", e);
+            }
+            return path;
+        });
+    }
+
+    private void moveIntoPlace(Path staged, Path target) throws IOException {
+        try {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // same hash, same bytes: whoever got there first wins
+        }
+    }
+
+    // =========================
+    // RELEASE
+    // =========================
+    /**
+     * Drops one reference to a stored upload once the current transaction
+     * commits (or straight away outside a transaction). Anything that is not
+     * a content-addressed upload URL, such as inline base64 or legacy
+     * /uploads/UUID_name files, is ignored.
+     */
+    public void releaseAfterCommit(String url) {
+        Optional<String> sha = shaOf(url);
+        if (sha.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(sha.get());
+                }
+            });
+        } else {
+            release(sha.get());
+        }
+    }
+
+    private void releaseOnRollback(String url) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String sha = shaOf(url).orElseThrow();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    release(sha);
+                }
+            }
+        });
+    }
+
+    private void release(String sha) {
+        try {
+            ownTx.executeWithoutResult(status -> {
+                if (storedImages.release(sha) == 0) {
+                    return; // unknown hash or already at 0
+                }
+                Optional<String> path = storedImages.findPathBySha256(sha);
+                if (path.isPresent() && storedImages.deleteIfUnreferenced(sha) == 1) {
+                    deleteWithVariants(resolve(path.get()), sha);
+                }
+            });
+        } catch (RuntimeException e) {
+            // a leaked reference only keeps a file around; never fail the delete that triggered it
+            logger.warn("Could not release stored image {}", sha, e);
+        }
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+    public static Optional<String> shaOf(String url) {
+        if (url == null) {
+            return Optional.empty();
+        }
+        Matcher m = STORED_URL.matcher(url);
+        return m.matches() ? Optional.of(m.group(1)) : Optional.empty();
+    }
+
+    // the original of a content-addressed upload, not a variant or a legacy UUID_name file
+    public static boolean isContentAddressed(Path file) {
+        return STORED_NAME.matcher(file.getFileName().toString()).matches();
+    }
+
+    /**
+     * The file behind an /uploads/ path (without the prefix), if it exists.
+     * Paths escaping the upload root or pointing into the staging area are
+     * treated as missing.
+     */
+    public Optional<Path> locate(String relative) {
+        Path path = root.resolve(relative).normalize();
+        if (!path.startsWith(root) || path.startsWith(tmp) || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(path);
+    }
+
+    private Path resolve(String relative) {
+        Path path = root.resolve(relative).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid upload path");
+        }
+        return path;
+    }
+
+    // the image type from the file signature, or null; the client's name and type are not trusted
+    static String extensionOf(byte[] head) {
+        if (startsWith(head, 0, 0xff, 0xd8, 0xff)) {
+            return "jpg";
+        }
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a)) {
+            return "png";
+        }
+        if (startsWith(head, 0, 'G', 'I', 'F', '8', '7', 'a') || startsWith(head, 0, 'G', 'I', 'F', '8', '9', 'a')) {
+            return "gif";
+        }
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P')) {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... signature) {
+        if (bytes.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((bytes[offset + i] & 0xff) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // resized copies sit next to the original as <sha256>.w<width>.<ext>
+    private static void deleteWithVariants(Path original, String sha) {
+        deleteQuietly(original);
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(original.getParent(), sha + ".*")) {
+            siblings.forEach(ImageStorageService::deleteQuietly);
+        } catch (IOException e) {
+            logger.warn("Could not delete variants of {}", original, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.blog.service;
+
+import com.blog.cache.ExpiringLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-width resized copies of uploaded images (e.g. 320/768/1280 px) so
+ * feed cards do not download multi-megabyte originals.
+ *
+ * Variants are written next to the original as {@code <sha256>.w320.jpg}
+ * by a small bounded pool; until a variant exists the original is served.
+ * Missing variants of older uploads are generated the first time they are
+ * asked for. When the pool is saturated work is dropped, not queued
+ * without bound: the next request for the variant simply tries again.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    // only formats ImageIO can both read and write; everything else is served as uploaded
+    private static final Map<String, String> OUTPUT_FORMATS = Map.of(
+            "jpg", "jpg",
+            "jpeg", "jpg",
+            "png", "png");
+
+    private final ImageStorageService imageStorage;
+    private final List<Integer> widths;
+    private final ThreadPoolExecutor pool;
+    // originals currently queued or being resized
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+    // originals already tried recently, so an image smaller than every width is not decoded per request
+    private final ExpiringLruCache<Path, Boolean> attempted;
+    private final Counter generated;
+    private final Counter dropped;
+
+    public ImageVariantService(ImageStorageService imageStorage,
+                               MeterRegistry meterRegistry,
+                               @Value("${blog.uploads.variant-widths:320,768,1280}") List<Integer> widths,
+                               @Value("${blog.uploads.variant-threads:2}") int threads,
+                               @Value("${blog.uploads.variant-queue-size:100}") int queueSize) {
+        this.imageStorage = imageStorage;
+        this.widths = widths.stream().filter(w -> w > 0).sorted().distinct().toList();
+
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "image-variants-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.attempted = new ExpiringLruCache<>(10_000, TimeUnit.HOURS.toMillis(1));
+
+        this.generated = Counter.builder("uploads.variants.generated").register(meterRegistry);
+        this.dropped = Counter.builder("uploads.variants.dropped").register(meterRegistry);
+        Gauge.builder("uploads.variants.queue", pool, p -> p.getQueue().size()).register(meterRegistry);
+    }
+
+    public List<Integer> getWidths() {
+        return widths;
+    }
+
+    // =========================
+    // SCHEDULE
+    // =========================
+    /**
+     * Queues variant generation for a stored upload URL. Returns immediately;
+     * URLs that are not content-addressed uploads are ignored.
+     */
+    public void generateAsync(String url) {
+        if (ImageStorageService.shaOf(url).isEmpty()) {
+            return;
+        }
+        imageStorage.locate(url.substring(ImageStorageService.URL_PREFIX.length()))
+                .ifPresent(this::submit);
+    }
+
+    private void submit(Path original) {
+        if (!inProgress.add(original)) {
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    generate(original);
+                } finally {
+                    attempted.put(original, Boolean.TRUE);
+                    inProgress.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(original);
+            dropped.increment();
+        }
+    }
+
+    // =========================
+    // SELECT
+    // =========================
+    /**
+     * What to serve for a requested display width.
+     *
+     * @param file    the variant, or the original when no suitable variant exists
+     * @param pending true when a variant may still appear for this width,
+     *                i.e. the response must not be cached for long
+     */
+    public record Selection(Path file, boolean pending) {}
+
+    /**
+     * The smallest variant at least {@code requestedWidth} wide if it exists,
+     * otherwise the original (and the missing variant is queued).
+     */
+    public Selection select(Path original, int requestedWidth) {
+        String format = outputFormat(original);
+        if (format == null || requestedWidth <= 0 || !ImageStorageService.isContentAddressed(original)) {
+            return new Selection(original, false);
+        }
+        for (int width : widths) {
+            if (width < requestedWidth) {
+                continue;
+            }
+            Path variant = variantPath(original, width);
+            if (Files.exists(variant)) {
+                return new Selection(variant, false);
+            }
+            if (attempted.get(original) == null) {
+                submit(original);
+                return new Selection(original, true);
+            }
+            // already tried: the source is narrower than this width, the original is the answer
+            return new Selection(original, inProgress.contains(original));
+        }
+        return new Selection(original, false);
+    }
+
+    // =========================
+    // GENERATE
+    // =========================
+    private void generate(Path original) {
+        String format = outputFormat(original);
+        if (format == null || !Files.exists(original)) {
+            return;
+        }
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+
+                // never upscale, and skip what is already there (e.g. a deduplicated upload)
+                List<Integer> targets = new ArrayList<>();
+                for (int width : widths) {
+                    if (width < sourceWidth && !Files.exists(variantPath(original, width))) {
+                        targets.add(width);
+                    }
+                }
+                if (targets.isEmpty()) {
+                    return;
+                }
+
+                // decode at reduced resolution: a 10 MB photo never needs its full raster in memory
+                int largest = targets.get(targets.size() - 1);
+                int factor = Math.max(1, sourceWidth / largest);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                BufferedImage source = reader.read(0, param);
+
+                for (int i = targets.size() - 1; i >= 0; i--) {
+                    int width = targets.get(i);
+                    source = downscale(source, width, format.equals("jpg"));
+                    write(source, format, variantPath(original, width));
+                    generated.increment();
+                }
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not generate variants for {}", original, e);
+        }
+    }
+
+    // halves repeatedly before the final step, which keeps bilinear scaling from aliasing
+    private static BufferedImage downscale(BufferedImage source, int width, boolean opaque) {
+        BufferedImage current = source;
+        int w = current.getWidth();
+        int h = current.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(1, Math.round((float) source.getHeight() * w / source.getWidth()));
+            BufferedImage next = new BufferedImage(w, h,
+                    opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (opaque) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w > width);
+        return current;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Path tmp = imageStorage.getRoot().resolve(".tmp");
+        Files.createDirectories(tmp);
+        Path staged = Files.createTempFile(tmp, "variant-", "." + format);
+        try {
+            if (!ImageIO.write(image, format, staged.toFile())) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+    // ab/cd/<sha>.jpg -> ab/cd/<sha>.w320.jpg
+    static Path variantPath(Path original, int width) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return original.resolveSibling(name.substring(0, dot) + ".w" + width + name.substring(dot));
+    }
+
+    private static String outputFormat(Path original) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : OUTPUT_FORMATS.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,238 @@
+package com.blog.service;
+
+import com.blog.event.FeedVersion;
+import com.blog.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves legacy inline base64 images out of posts.image_base64 into the
+ * upload store, leaving an /uploads/... reference in the column.
+ *
+ * Runs once per start on a single background thread, a few rows per chunk
+ * with a pause in between, so it never competes with request traffic.
+ * It is resumable by construction: every pass selects the rows that are
+ * still inline, so a restart simply continues with what is left. Two
+ * replicas running it at once are safe too: the column is only replaced
+ * while it is still inline and the loser gives its stored reference back.
+ *
+ * Once nothing inline is left the column is shrunk to VARCHAR(512).
+ * Progress is exposed at /actuator/imagemigration.
+ */
+@Component
+public class InlineImageMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(InlineImageMigration.class);
+
+    static final int IMAGE_REF_LENGTH = 512;
+
+    public enum State { IDLE, RUNNING, COMPLETED, STOPPED, FAILED, DISABLED }
+
+    private final PostRepository postRepository;
+    private final ImageStorageService imageStorage;
+    private final ImageVariantService imageVariants;
+    private final FeedVersion feedVersion;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final boolean shrinkColumn;
+
+    private volatile State state = State.IDLE;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long lastId;
+    private volatile long total = -1;
+    private volatile String columnType;
+    private final AtomicLong migrated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Thread worker;
+
+    public InlineImageMigration(PostRepository postRepository,
+                                ImageStorageService imageStorage,
+                                ImageVariantService imageVariants,
+                                FeedVersion feedVersion,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${blog.images.migration.enabled:true}") boolean enabled,
+                                @Value("${blog.images.migration.chunk-size:20}") int chunkSize,
+                                @Value("${blog.images.migration.pause-ms:1000}") long pauseMillis,
+                                @Value("${blog.images.migration.shrink-column:true}") boolean shrinkColumn) {
+        this.postRepository = postRepository;
+        this.imageStorage = imageStorage;
+        this.imageVariants = imageVariants;
+        this.feedVersion = feedVersion;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.shrinkColumn = shrinkColumn;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        Thread t = new Thread(this::run, "inline-image-migration");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        worker = t;
+        t.start();
+    }
+
+    // =========================
+    // JOB
+    // =========================
+    private void run() {
+        state = State.RUNNING;
+        startedAt = LocalDateTime.now();
+        try {
+            total = postRepository.countInlineImages();
+            if (total > 0) {
+                logger.info("Migrating {} inline images to {}", total, imageStorage.getRoot());
+            }
+
+            List<Long> ids;
+            while (!(ids = postRepository.findInlineImageIds(lastId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                for (Long id : ids) {
+                    migrate(id);
+                    lastId = id;
+                }
+                // image URLs on feed pages changed without a PostEvent
+                feedVersion.bump();
+                Thread.sleep(pauseMillis);
+            }
+
+            if (failed.get() == 0 && shrinkColumn) {
+                shrinkColumn();
+            }
+            state = State.COMPLETED;
+            if (total > 0) {
+                logger.info("Inline image migration done: {} migrated, {} failed", migrated.get(), failed.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.STOPPED;
+        } catch (RuntimeException e) {
+            // typically the database is unreachable; the next start picks up where this one stopped
+            logger.warn("Inline image migration stopped after post {}", lastId, e);
+            state = State.FAILED;
+        } finally {
+            finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void migrate(Long id) {
+        // one payload in memory at a time
+        String inline = postRepository.findImageById(id).orElse(null);
+        if (inline == null || inline.startsWith("/")) {
+            return; // deleted or migrated by someone else meanwhile
+        }
+
+        if (inline.isBlank()) {
+            postRepository.replaceInlineImage(id, null);
+            migrated.incrementAndGet();
+            return;
+        }
+
+        byte[] bytes;
+        try {
+            // "data:image/png;base64,...." or bare base64; the declared type is not trusted anyway
+            int comma = inline.indexOf(',');
+            String data = inline.startsWith("data:") && comma > 0 ? inline.substring(comma + 1) : inline;
+            bytes = Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Post {} has an undecodable inline image, left as is", id);
+            failed.incrementAndGet();
+            return;
+        }
+
+        String url;
+        try {
+            url = tx.execute(status -> {
+                String stored = imageStorage.store(new ByteArrayInputStream(bytes));
+                if (postRepository.replaceInlineImage(id, stored) == 0) {
+                    status.setRollbackOnly(); // lost the race; the rollback releases the reference
+                    return null;
+                }
+                return stored;
+            });
+        } catch (IllegalArgumentException e) {
+            logger.warn("Post {} has an inline image of an unsupported type, left as is", id);
+            failed.incrementAndGet();
+            return;
+        }
+        if (url != null) {
+            migrated.incrementAndGet();
+            imageVariants.generateAsync(url);
+        }
+    }
+
+    // LONGTEXT -> VARCHAR(512): rows are read without off-page blobs from now on
+    private void shrinkColumn() {
+        columnType = jdbcTemplate.queryForObject(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'posts' AND COLUMN_NAME = 'image_base64'",
+                String.class);
+        if (!"longtext".equalsIgnoreCase(columnType)) {
+            return;
+        }
+        Integer longest = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(CHAR_LENGTH(image_base64)), 0) FROM posts", Integer.class);
+        if (longest != null && longest > IMAGE_REF_LENGTH) {
+            logger.warn("Not shrinking posts.image_base64: a value of {} characters is still present", longest);
+            return;
+        }
+        logger.info("Shrinking posts.image_base64 to VARCHAR({})", IMAGE_REF_LENGTH);
+        jdbcTemplate.execute("ALTER TABLE posts MODIFY image_base64 VARCHAR(" + IMAGE_REF_LENGTH + ") NULL");
+        columnType = "varchar";
+    }
+
+    // =========================
+    // PROGRESS
+    // =========================
+    public Map<String, Object> progress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", state);
+        progress.put("total", total < 0 ? null : total);
+        progress.put("migrated", migrated.get());
+        progress.put("failed", failed.get());
+        progress.put("remaining", total < 0 ? null : Math.max(0, total - migrated.get() - failed.get()));
+        progress.put("lastPostId", lastId);
+        progress.put("chunkSize", chunkSize);
+        progress.put("pauseMs", pauseMillis);
+        progress.put("columnType", columnType);
+        progress.put("startedAt", startedAt);
+        progress.put("finishedAt", finishedAt);
+        return progress;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = worker;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.blog.service;
+
+import com.blog.repository.AuthorStatsRepository;
+import com.blog.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Applies like counter deltas to posts.likes.
+ *
+ * By default every delta is written straight away with an atomic UPDATE.
+ * With blog.likes.write-behind.enabled=true deltas are accumulated per post
+ * in memory and flushed as one JDBC batch every flush-interval-ms (and on
+ * shutdown), so a viral post costs one row update per interval instead of
+ * one per like. Readers add {@link #pending(Long)} to the persisted value.
+ * A delta is only buffered once the like's transaction has committed, just
+ * before its PostEvent is delivered, so readers and caches never count a
+ * like that may still roll back.
+ *
+ * A post's buffered and in-flight (being flushed) deltas share one map
+ * entry, so a reader always sees their sum and a flush moves a delta
+ * between them atomically. The flush commits, and settles its in-flight
+ * deltas, under a write lock; loads that fill caches run under the read
+ * lock via {@link #consistentRead}, so they never add an in-flight delta to
+ * a row that already contains it, nor miss one.
+ */
+@Component
+public class LikeCountBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCountBuffer.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE posts SET likes = GREATEST(likes + ?, 0) WHERE id = ?";
+    // the author's likes-received total moves with the post's counter, in the same transaction;
+    // a deleted post's likes were already taken off its author
+    private static final String AUTHOR_FLUSH_SQL =
+            "UPDATE author_stats SET likes = GREATEST(likes + ?, 0) " +
+            "WHERE author_id = (SELECT p.author_id FROM posts p WHERE p.id = ? AND p.deleted_at IS NULL)";
+
+    private final PostRepository postRepository;
+    private final AuthorStatsRepository authorStats;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final boolean writeBehind;
+
+    // not yet flushed, and taken by a flush that has not committed yet; both still counted by readers
+    private record Delta(long pending, long inFlight) {}
+
+    // merge() and compute() on a ConcurrentHashMap are atomic per key and only lock that key's bin,
+    // so concurrent likes on different posts do not contend
+    private final Map<Long, Delta> deltas = new ConcurrentHashMap<>();
+    // held for writing from just before a flush commits until its in-flight deltas are settled
+    private final ReentrantReadWriteLock flushCommit = new ReentrantReadWriteLock();
+
+    public LikeCountBuffer(PostRepository postRepository,
+                           AuthorStatsRepository authorStats,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${blog.likes.write-behind.enabled:false}") boolean writeBehind) {
+        this.postRepository = postRepository;
+        this.authorStats = authorStats;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.writeBehind = writeBehind;
+    }
+
+    public void add(Long postId, int delta) {
+        if (!writeBehind) {
+            postRepository.adjustLikes(postId, delta);
+            authorStats.adjustLikesOfPost(postId, delta);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    buffer(postId, delta);
+                }
+            });
+        } else {
+            buffer(postId, delta);
+        }
+    }
+
+    private void buffer(Long postId, long delta) {
+        deltas.merge(postId, new Delta(delta, 0), (a, b) -> nonZero(a.pending() + b.pending(), a.inFlight()));
+    }
+
+    // delta not yet visible in posts.likes for this post
+    public long pending(Long postId) {
+        if (!writeBehind) {
+            return 0;
+        }
+        Delta delta = deltas.get(postId);
+        return delta == null ? 0 : delta.pending() + delta.inFlight();
+    }
+
+    /**
+     * Runs a read of posts.likes plus {@link #pending(Long)} so that no flush
+     * commits in between; for loads whose result is cached.
+     */
+    public <T> T consistentRead(Supplier<T> read) {
+        if (!writeBehind) {
+            return read.get();
+        }
+        flushCommit.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            flushCommit.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${blog.likes.write-behind.flush-interval-ms:500}")
+    public synchronized void flush() {
+        if (!writeBehind || deltas.isEmpty()) {
+            return;
+        }
+
+        // flushes do not overlap, so nothing is in flight yet
+        List<Object[]> batch = new ArrayList<>();
+        for (Long postId : deltas.keySet()) {
+            deltas.computeIfPresent(postId, (id, delta) -> {
+                if (delta.pending() != 0) {
+                    batch.add(new Object[]{delta.pending(), id});
+                }
+                return new Delta(0, delta.pending());
+            });
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            tx.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                jdbcTemplate.batchUpdate(AUTHOR_FLUSH_SQL, batch);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        flushCommit.writeLock().lock();
+                    }
+
+                    @Override
+                    public void afterCompletion(int completion) {
+                        try {
+                            settle(batch, completion == STATUS_COMMITTED);
+                        } finally {
+                            if (flushCommit.writeLock().isHeldByCurrentThread()) {
+                                flushCommit.writeLock().unlock();
+                            }
+                        }
+                    }
+                });
+            });
+        } catch (RuntimeException e) {
+            // batch ran in one transaction, so nothing was applied; settle() put the deltas back
+            logger.warn("Like counter flush of {} posts failed, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    // committed: the in-flight deltas are now in posts.likes; otherwise they are pending again
+    private void settle(List<Object[]> batch, boolean committed) {
+        for (Object[] row : batch) {
+            deltas.computeIfPresent((Long) row[1], (id, delta) ->
+                    nonZero(committed ? delta.pending() : delta.pending() + delta.inFlight(), 0));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (writeBehind && !deltas.isEmpty()) {
+            logger.error("Like counter deltas for {} posts were not persisted on shutdown", deltas.size());
+        }
+    }
+
+    private static Delta nonZero(long pending, long inFlight) {
+        return pending == 0 && inFlight == 0 ? null : new Delta(pending, inFlight);
+    }
+}
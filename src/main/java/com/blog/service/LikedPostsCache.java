@@ -0,0 +1,91 @@
+package com.blog.service;
+
+import com.blog.cache.ExpiringLruCache;
+import com.blog.event.PostEvent;
+import com.blog.repository.PostLikeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, per user, which posts they have or have not liked, so the
+ * feed's "liked by me" state costs at most one IN query per page and
+ * nothing for pages already seen. Likes and unlikes are applied from
+ * {@link PostEvent}s once their transaction has committed, so a rolled back
+ * like never shows up here.
+ */
+@Component
+public class LikedPostsCache {
+
+    private static final int MAX_POSTS_PER_USER = 2_000;
+
+    private final PostLikeRepository likeRepository;
+    private final ExpiringLruCache<Long, Map<Long, Boolean>> byUser;
+
+    public LikedPostsCache(PostLikeRepository likeRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${blog.likes.liked-cache.max-users:10000}") int maxUsers,
+                           @Value("${blog.likes.liked-cache.ttl-ms:600000}") long ttlMillis) {
+        this.likeRepository = likeRepository;
+        this.byUser = new ExpiringLruCache<>(maxUsers, ttlMillis);
+        this.byUser.bindTo(meterRegistry, "likedPosts");
+    }
+
+    public Set<Long> likedAmong(Long userId, Collection<Long> postIds) {
+        Map<Long, Boolean> known = byUser.get(userId);
+        if (known == null) {
+            known = new ConcurrentHashMap<>();
+            byUser.put(userId, known);
+        }
+
+        List<Long> unknown = new ArrayList<>();
+        for (Long postId : postIds) {
+            if (!known.containsKey(postId)) {
+                unknown.add(postId);
+            }
+        }
+
+        if (!unknown.isEmpty()) {
+            if (known.size() + unknown.size() > MAX_POSTS_PER_USER) {
+                known.clear();
+            }
+            Set<Long> liked = Set.copyOf(likeRepository.findLikedPostIds(userId, unknown));
+            // a like recorded while the query ran is newer than what it read
+            for (Long postId : unknown) {
+                known.putIfAbsent(postId, liked.contains(postId));
+            }
+        }
+
+        Set<Long> result = new LinkedHashSet<>();
+        for (Long postId : postIds) {
+            if (Boolean.TRUE.equals(known.get(postId))) {
+                result.add(postId);
+            }
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEvent event) {
+        if (event.type() == PostEvent.Type.LIKES_CHANGED && event.userId() != null) {
+            record(event.userId(), event.postId(), event.delta() > 0);
+        }
+    }
+
+    // only users already cached are touched; others load fresh on their next lookup
+    void record(Long userId, Long postId, boolean liked) {
+        Map<Long, Boolean> known = byUser.get(userId);
+        if (known != null) {
+            known.put(postId, liked);
+        }
+    }
+}
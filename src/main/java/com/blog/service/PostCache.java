@@ -0,0 +1,110 @@
+package com.blog.service;
+
+import com.blog.cache.ExpiringLruCache;
+import com.blog.dto.PostDto;
+import com.blog.event.PostEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * PostDto by id for hot single-post reads.
+ *
+ * Entries are kept current from {@link PostEvent}s: edits replace them,
+ * likes and comments patch the counters, deletes drop them. Concurrent
+ * misses for the same id share one load. A load that overlaps a change to
+ * its post is returned to its callers but not cached, and the TTL bounds
+ * any drift left by a change that commits while an entry is being loaded.
+ *
+ * Cached instances are never modified; patches replace them with copies,
+ * so a response being serialised never sees a half-applied change.
+ */
+@Component
+public class PostCache {
+
+    private final ExpiringLruCache<Long, PostDto> posts;
+    // id -> load in progress, joined by concurrent misses
+    private final Map<Long, CompletableFuture<PostDto>> loading = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public PostCache(MeterRegistry meterRegistry,
+                     @Value("${blog.posts.cache.max-entries:5000}") int maxEntries,
+                     @Value("${blog.posts.cache.ttl-ms:60000}") long ttlMillis) {
+        this.posts = new ExpiringLruCache<>(maxEntries, ttlMillis);
+        this.posts.bindTo(meterRegistry, "posts");
+        this.coalesced = Counter.builder("cache.loads.coalesced").tag("cache", "posts").register(meterRegistry);
+    }
+
+    public PostDto get(Long id, Function<Long, PostDto> loader) {
+        PostDto cached = posts.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<PostDto> mine = new CompletableFuture<>();
+        CompletableFuture<PostDto> running = loading.putIfAbsent(id, mine);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+
+        try {
+            PostDto loaded = loader.apply(id);
+            synchronized (this) {
+                // still registered means no event touched this post while it was loading
+                if (loading.remove(id, mine)) {
+                    posts.put(id, loaded);
+                }
+            }
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            loading.remove(id, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // cached value only, never loads
+    public PostDto peek(Long id) {
+        return posts.get(id);
+    }
+
+    // =========================
+    // WRITE-THROUGH
+    // =========================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEvent event) {
+        Long id = event.postId();
+        synchronized (this) {
+            loading.remove(id);
+            switch (event.type()) {
+                case POST_CREATED, POST_UPDATED -> posts.put(id, ((PostDto) event.payload()).toBuilder().build());
+                case POST_DELETED -> posts.remove(id);
+                case LIKES_CHANGED -> posts.update(id, dto ->
+                        dto.toBuilder().likes(Math.max(0, dto.getLikes() + event.delta())).build());
+                case COMMENT_ADDED, COMMENT_DELETED -> posts.update(id, dto ->
+                        dto.toBuilder().comments(Math.max(0, dto.getComments() + event.delta())).build());
+            }
+        }
+    }
+
+    private static PostDto join(CompletableFuture<PostDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.blog.service;
+
+import com.blog.repository.PostCommentRepository;
+import com.blog.repository.PostLikeRepository;
+import com.blog.repository.PostRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes deleted posts for good. A delete only sets posts.deleted_at, so the
+ * request never waits on the post's likes, comments and files; this job
+ * deletes those, then the row, a batch at a time on a background thread
+ * with a pause between batches.
+ *
+ * Nothing is kept in memory: the tombstones are the backlog, so a restart
+ * simply carries on with whatever is left. Each batch is row-locked first,
+ * which keeps two instances from purging the same post (and releasing its
+ * image twice).
+ */
+@Component
+public class PostPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostPurger.class);
+
+    private final PostRepository postRepository;
+    private final PostLikeRepository likeRepository;
+    private final PostCommentRepository commentRepository;
+    private final ImageStorageService imageStorage;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final long idleMillis;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter purged;
+    private final Timer batches;
+    private volatile Thread worker;
+
+    public PostPurger(PostRepository postRepository,
+                      PostLikeRepository likeRepository,
+                      PostCommentRepository commentRepository,
+                      ImageStorageService imageStorage,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry,
+                      @Value("${blog.posts.purge.enabled:true}") boolean enabled,
+                      @Value("${blog.posts.purge.batch-size:100}") int batchSize,
+                      @Value("${blog.posts.purge.pause-ms:500}") long pauseMillis,
+                      @Value("${blog.posts.purge.idle-ms:30000}") long idleMillis) {
+        this.postRepository = postRepository;
+        this.likeRepository = likeRepository;
+        this.commentRepository = commentRepository;
+        this.imageStorage = imageStorage;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = pauseMillis;
+        this.idleMillis = Math.max(1, idleMillis);
+        Gauge.builder("posts.purge.backlog", backlog, AtomicLong::get).register(meterRegistry);
+        this.purged = Counter.builder("posts.purged").register(meterRegistry);
+        this.batches = Timer.builder("posts.purge.batch").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread t = new Thread(this::run, "post-purger");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        worker = t;
+        t.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = worker;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    // =========================
+    // JOB
+    // =========================
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                backlog.set(postRepository.countTombstoned());
+                List<Long> ids;
+                while (!(ids = postRepository.findTombstonedIds(PageRequest.of(0, batchSize))).isEmpty()) {
+                    List<Long> batch = ids;
+                    int count = batches.record(() -> purge(batch));
+                    purged.increment(count);
+                    backlog.updateAndGet(left -> Math.max(0, left - count));
+                    Thread.sleep(pauseMillis);
+                }
+                Thread.sleep(idleMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // typically the database is unreachable; the tombstones wait for the next round
+                logger.warn("Post purge failed, retrying in {} ms", idleMillis, e);
+                try {
+                    Thread.sleep(idleMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // children first, then the posts: one DELETE per table for the whole batch
+    private int purge(List<Long> candidates) {
+        Integer count = tx.execute(status -> {
+            List<Long> ids = postRepository.lockTombstoned(candidates);
+            if (ids.isEmpty()) {
+                return 0; // purged by another instance meanwhile
+            }
+            List<String> images = postRepository.findImageRefsByIdIn(ids);
+            likeRepository.deleteByPostIdIn(ids);
+            commentRepository.deleteByPostIdIn(ids);
+            int deleted = postRepository.purge(ids);
+            images.forEach(imageStorage::releaseAfterCommit);
+            return deleted;
+        });
+        return count == null ? 0 : count;
+    }
+}
@@ -1,34 +1,68 @@
 package com.blog.service;
 
+import com.blog.dto.AuthorStatsDto;
 import com.blog.dto.CommentDto;
+import com.blog.dto.CursorPage;
 import com.blog.dto.PostDto;
+import com.blog.dto.PostSummaryDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface PostService {
 
     // UPDATED: image support added
-    PostDto createPost(PostDto dto, MultipartFile image, String username);
+    PostDto createPost(PostDto dto, MultipartFile image, Long authorId, String authorUsername);
 
-    Page<PostDto> getAllPosts(Pageable pageable);
+    // feed endpoints return summaries; the full body comes from getPostById
+    Page<PostSummaryDto> getAllPosts(Pageable pageable);
+
+    // keyset feed: after is an opaque cursor, blank for the first slice
+    CursorPage<PostSummaryDto> getFeed(String after, int size, boolean withTotal);
+
+    // one author's posts, newest first, same cursor scheme as getFeed
+    CursorPage<PostSummaryDto> getAuthorPosts(Long authorId, String after, int size);
+
+    AuthorStatsDto getAuthorStats(Long authorId);
+
+    // highest time-decayed like/comment score first, at most MAX_FEED_SIZE
+    List<PostSummaryDto> getTrending(int limit);
+
+    // full-text search over titles and content, best match first
+    Page<PostSummaryDto> searchPosts(String query, Pageable pageable);
 
     PostDto getPostById(Long id);
 
+    // changes whenever the post's content, counters or image change
+    String getPostVersion(PostDto post);
+
+    // decoded bytes of a legacy inline (base64) image
+    byte[] getInlineImage(Long id);
+
+    String getImageUrl(Long id);
+
     PostDto updatePost(Long id, PostDto dto, String username);
 
     void deletePost(Long id, String username);
 
     void adminDeletePost(Long id);
 
+    // tombstones the posts in one statement; returns how many existed
+    int deletePosts(Collection<Long> ids);
+
     // likes
-    void likePost(Long postId, String username);
+    void likePost(Long postId, Long userId);     // toggle
+    boolean like(Long postId, Long userId);      // true if a like was added
+    boolean unlike(Long postId, Long userId);    // true if a like was removed
+    Set<Long> getLikedPostIds(Long userId, Collection<Long> postIds);
     long getLikesCount(Long postId);
 
     // comments
-    CommentDto addComment(Long postId, String username, String content);
+    CommentDto addComment(Long postId, Long userId, String username, String content);
     List<CommentDto> getComments(Long postId);
     long getCommentsCount(Long postId);
 }
@@ -1,20 +1,31 @@
 package com.blog.service;
 import com.blog.entity.Post;
+import com.blog.dto.AuthorStatsDto;
 import com.blog.dto.CommentDto;
+import com.blog.dto.CursorPage;
+import com.blog.dto.FeedCursor;
 import com.blog.dto.PostDto;
+import com.blog.dto.PostSummaryDto;
+import com.blog.event.PostEvent;
 import com.blog.entity.Post;
 import com.blog.entity.PostComment;
-import com.blog.entity.PostLike;
 import com.blog.entity.User;
 import com.blog.exception.ResourceNotFoundException;
+import com.blog.entity.AuthorStats;
+import com.blog.repository.AuthorStatsRepository;
 import com.blog.repository.PostCommentRepository;
 import com.blog.repository.PostLikeRepository;
 import com.blog.repository.PostRepository;
 import com.blog.repository.UserRepository;
+import com.blog.search.Bm25Index;
+import com.blog.search.PostSearchIndex;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -22,94 +33,290 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.Base64;
 @Transactional
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
+    static final int MAX_FEED_SIZE = 50;
+    // deepest search result served; ranking beyond it is not worth the heap
+    private static final int MAX_SEARCH_RESULTS = 1000;
+    private static final long TOTAL_COUNT_TTL_MS = 30_000;
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final PostLikeRepository likeRepository;
     private final PostCommentRepository commentRepository;
+    private final AuthorStatsRepository authorStats;
+    private final LikeCountBuffer likeCounts;
+    private final LikedPostsCache likedPosts;
+    private final PostCache postCache;
+    private final TrendingScores trending;
+    private final PostSearchIndex searchIndex;
+    private final ImageStorageService imageStorage;
+    private final ImageVariantService imageVariants;
+    private final ApplicationEventPublisher events;
+
+    // COUNT(*) over posts is only needed for the optional total; cache it briefly
+    private volatile long cachedTotal = -1;
+    private volatile long cachedTotalAt;
 
     // =========================
     // CREATE POST (TEXT + IMAGE)
     // =========================
     @Override
-    public PostDto createPost(PostDto dto, MultipartFile image, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    public PostDto createPost(PostDto dto, MultipartFile image, Long authorId, String authorUsername) {
+        // id comes from the token; a reference proxy avoids a users SELECT
+        User author = userRepository.getReferenceById(authorId);
 
         Post post = Post.builder()
                 .title(dto.getTitle())
                 .content(dto.getContent())
-                .author(user)
+                .author(author)
                 .comments(0) // Initialize to avoid null
                 .likes(0)    // Initialize to avoid null
                 .build();
 
         if (image != null && !image.isEmpty()) {
-            try {
-                // 1. Define the absolute path to the Azure PVC mount
-                String uploadDir = "/uploads/";
-                String fileName = UUID.randomUUID().toString() + "_" + image.getOriginalFilename();
-                Path uploadPath = Paths.get(uploadDir);
-
-                // 2. Create directory if it doesn't exist
-                if (!Files.exists(uploadPath)) {
-                    Files.createDirectories(uploadPath);
-                }
-
-                // 3. Save the file to the disk
-                Path filePath = uploadPath.resolve(fileName);
-                Files.copy(image.getInputStream(), filePath);
-
-                // 4. Store the URL in the database (this is what the frontend will call)
-                // Example: /uploads/abc-123-image.jpg
-                post.setImageBase64("/uploads/" + fileName); 
-
-            } catch (IOException e) {
-                throw new RuntimeException("Could not save image file!", e);
-            }
+            // content-addressed: identical uploads share one file, e.g. /uploads/ab/cd/<sha256>.jpg
+            post.setImageBase64(imageStorage.store(image));
+            // resized copies for feed cards are produced in the background
+            imageVariants.generateAsync(post.getImageBase64());
         }
 
         Post saved = postRepository.save(post);
-        return mapToDto(saved);
+        authorStats.adjustPosts(authorId, 1);
+        cachedTotal = -1;
+        PostDto created = mapToDto(saved, authorUsername);
+        events.publishEvent(PostEvent.created(created));
+        return created;
     }
 
     // =========================
     // GET ALL POSTS
     // =========================
     @Override
-    public Page<PostDto> getAllPosts(Pageable pageable) {
-        Page<Post> page = postRepository.findAllByOrderByCreatedAtDesc(pageable);
-        return page.map(this::mapToDto);
+    public Page<PostSummaryDto> getAllPosts(Pageable pageable) {
+        // ordering is fixed by the query; only page/size are taken from the request
+        Pageable window = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return postRepository.findSummaries(window).map(this::decorate);
+    }
+
+    // =========================
+    // CURSOR FEED (KEYSET)
+    // =========================
+    @Override
+    public CursorPage<PostSummaryDto> getFeed(String after, int size, boolean withTotal) {
+        int limit = Math.max(1, Math.min(size, MAX_FEED_SIZE));
+        // fetch one extra row to know whether another slice exists
+        PageRequest window = PageRequest.of(0, limit + 1);
+
+        List<PostSummaryDto> rows;
+        if (after == null || after.isBlank()) {
+            rows = postRepository.findFeedFirst(window);
+        } else {
+            FeedCursor cursor = FeedCursor.decode(after);
+            rows = postRepository.findFeedAfter(cursor.createdAt(), cursor.id(), window);
+        }
+
+        return slice(rows, limit, withTotal ? totalPosts() : null);
+    }
+
+    // rows were fetched with one extra to tell whether another slice exists
+    private CursorPage<PostSummaryDto> slice(List<PostSummaryDto> rows, int limit, Long total) {
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) {
+            rows = rows.subList(0, limit);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            PostSummaryDto last = rows.get(rows.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return CursorPage.<PostSummaryDto>builder()
+                .content(rows.stream().map(this::decorate).toList())
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .size(limit)
+                .totalElements(total)
+                .build();
+    }
+
+    private long totalPosts() {
+        long now = System.currentTimeMillis();
+        if (cachedTotal < 0 || now - cachedTotalAt > TOTAL_COUNT_TTL_MS) {
+            cachedTotal = postRepository.count();
+            cachedTotalAt = now;
+        }
+        return cachedTotal;
+    }
+
+    // =========================
+    // AUTHOR TIMELINE
+    // =========================
+    @Override
+    public CursorPage<PostSummaryDto> getAuthorPosts(Long authorId, String after, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_FEED_SIZE));
+        PageRequest window = PageRequest.of(0, limit + 1);
+
+        List<PostSummaryDto> rows;
+        if (after == null || after.isBlank()) {
+            rows = postRepository.findAuthorFeedFirst(authorId, window);
+            if (rows.isEmpty() && !userRepository.existsById(authorId)) {
+                throw new ResourceNotFoundException("User not found");
+            }
+        } else {
+            FeedCursor cursor = FeedCursor.decode(after);
+            rows = postRepository.findAuthorFeedAfter(authorId, cursor.createdAt(), cursor.id(), window);
+        }
+        return slice(rows, limit, null);
+    }
+
+    // totals are adjusted by the write paths; the author is only aggregated on the first read
+    @Override
+    public AuthorStatsDto getAuthorStats(Long authorId) {
+        AuthorStats stats = authorStats.findById(authorId).orElseGet(() -> {
+            if (!userRepository.existsById(authorId)) {
+                throw new ResourceNotFoundException("User not found");
+            }
+            authorStats.initialize(authorId);
+            return authorStats.findById(authorId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        });
+        // with like write-behind, likes lag by at most one flush interval
+        return new AuthorStatsDto(authorId, stats.getPosts(), stats.getLikes(), stats.getComments());
+    }
+
+    // =========================
+    // TRENDING
+    // =========================
+    // ranking comes from memory; only the cards of the top ids are read
+    @Override
+    public List<PostSummaryDto> getTrending(int limit) {
+        List<Long> ids = trending.top(Math.max(1, Math.min(limit, MAX_FEED_SIZE)));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PostSummaryDto> byId = new HashMap<>();
+        for (PostSummaryDto row : postRepository.findSummariesByIds(ids)) {
+            byId.put(row.getId(), row);
+        }
+        List<PostSummaryDto> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PostSummaryDto row = byId.get(id);
+            if (row != null) {
+                ranked.add(decorate(row));
+            }
+        }
+        return ranked;
+    }
+
+    // =========================
+    // SEARCH
+    // =========================
+    // ranked in memory by the search index; only the cards of the requested page are read
+    @Override
+    public Page<PostSummaryDto> searchPosts(String query, Pageable pageable) {
+        int size = Math.max(1, Math.min(pageable.getPageSize(), MAX_FEED_SIZE));
+        PageRequest window = PageRequest.of(pageable.getPageNumber(), size);
+        if (window.getOffset() + size > MAX_SEARCH_RESULTS) {
+            return Page.empty(window);
+        }
+
+        Bm25Index.Hits hits = searchIndex.search(query, (int) window.getOffset(), size);
+        List<Long> ids = hits.hits().stream().map(Bm25Index.Hit::id).toList();
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), window, hits.total());
+        }
+        Map<Long, PostSummaryDto> byId = new HashMap<>();
+        for (PostSummaryDto row : postRepository.findSummariesByIds(ids)) {
+            byId.put(row.getId(), row);
+        }
+        List<PostSummaryDto> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PostSummaryDto row = byId.get(id);
+            if (row != null) {
+                ranked.add(decorate(row));
+            } else {
+                searchIndex.remove(id); // deleted while nothing was listening
+            }
+        }
+        return new PageImpl<>(ranked, window, hits.total());
     }
 
     // =========================
     // GET SINGLE POST
     // =========================
+    // served from PostCache; no transaction, so a hit does not even borrow a connection.
+    // A miss loads outside a like-counter flush commit so the cached count is exact
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public PostDto getPostById(Long id) {
-        Post post = postRepository.findById(id)
+        return postCache.get(id, key -> likeCounts.consistentRead(() -> loadPost(key)));
+    }
+
+    private PostDto loadPost(Long id) {
+        Post post = postRepository.findWithAuthorById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
         return mapToDto(post);
     }
 
+    // computed from the DTO itself, no query; String caches its hash, so the cached
+    // content is hashed once, not on every request
+    @Override
+    public String getPostVersion(PostDto post) {
+        return post.getId()
+                + "-" + Integer.toHexString(Objects.hash(post.getTitle(), post.getContent()))
+                + "-" + post.getLikes()
+                + "-" + post.getComments()
+                + "-" + Integer.toHexString(Objects.hashCode(post.getImageBase64()));
+    }
+
+    // =========================
+    // LEGACY INLINE IMAGE
+    // =========================
+    @Override
+    public byte[] getInlineImage(Long id) {
+        String stored = postRepository.findImageById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+        if (stored.startsWith("/")) {
+            throw new ResourceNotFoundException("Image is not stored inline");
+        }
+        // accept both "data:image/png;base64,...." and bare base64
+        int comma = stored.indexOf(',');
+        String data = stored.startsWith("data:") && comma > 0 ? stored.substring(comma + 1) : stored;
+        try {
+            return Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException("Image data is corrupt");
+        }
+    }
+
+    // public URL of the post's image: the upload itself, or the inline endpoint; null without image
+    @Override
+    public String getImageUrl(Long id) {
+        String ref = postRepository.findImageRefById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+        return imageUrlOf(id, ref);
+    }
+
     // =========================
     // UPDATE POST (TEXT ONLY)
     // =========================
     @Override
     public PostDto updatePost(Long id, PostDto dto, String username) {
-        Post post = postRepository.findById(id)
+        Post post = postRepository.findWithAuthorById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
 
         if (post.getAuthor() == null || !post.getAuthor().getUsername().equals(username)) {
@@ -120,7 +327,9 @@ public class PostServiceImpl implements PostService {
         post.setContent(dto.getContent());
 
         Post updated = postRepository.save(post);
-        return mapToDto(updated);
+        PostDto result = mapToDto(updated);
+        events.publishEvent(PostEvent.updated(result));
+        return result;
     }
 
     // =========================
@@ -129,7 +338,7 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional
     public void deletePost(Long postId, String username) {
-        Post post = postRepository.findById(postId)
+        Post post = postRepository.findWithAuthorById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
 
         // Check ownership
@@ -137,16 +346,13 @@ public class PostServiceImpl implements PostService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied");
         }
 
-        // 1. Manually clear child blockers
-        likeRepository.deleteByPost(post);
-        commentRepository.deleteByPost(post);
-
-        // 2. Safely delete the parent
-        postRepository.delete(post);
+        // only the delete that lands the tombstone counts; a concurrent one finds it already set
+        if (tombstone(List.of(postId)) == 1) {
+            authorStats.subtractPost(postId);
+            events.publishEvent(PostEvent.deleted(postId, post.getAuthor().getId()));
+        }
     }
 
-
-
     // =========================
     // ADMIN DELETE
     // =========================
@@ -155,39 +361,92 @@ public class PostServiceImpl implements PostService {
         if (!postRepository.existsById(id)) {
             throw new ResourceNotFoundException("Post not found");
         }
-        postRepository.deleteById(id);
+        if (tombstone(List.of(id)) == 1) {
+            authorStats.subtractPost(id);
+            events.publishEvent(PostEvent.deleted(id, null));
+        }
+    }
+
+    // =========================
+    // BULK DELETE
+    // =========================
+    // one batch per call; BulkPostDeletion keeps batches small so locks are held briefly
+    @Override
+    public int deletePosts(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> authors = postRepository.findAuthorIdsByIdIn(ids);
+        int deleted = tombstone(ids);
+        // cheaper than subtracting post by post; these authors are re-counted on their next read
+        if (!authors.isEmpty()) {
+            authorStats.forget(authors);
+        }
+        for (Long id : ids) {
+            events.publishEvent(PostEvent.deleted(id, null));
+        }
+        return deleted;
+    }
+
+    // a single UPDATE; likes, comments and the uploaded image go later, with the row, in PostPurger
+    private int tombstone(Collection<Long> ids) {
+        int deleted = postRepository.tombstone(ids, LocalDateTime.now());
+        cachedTotal = -1;
+        return deleted;
     }
 
     // =========================
     // LIKES
     // =========================
     @Override
-    public void likePost(Long postId, String username) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        likeRepository.findByPostAndUser(post, user).ifPresentOrElse(
-                pl -> {
-                    likeRepository.delete(pl);
-                    post.setLikes(Math.max(0, post.getLikes() - 1));
-                    postRepository.save(post);
-                },
-                () -> {
-                    PostLike newLike = PostLike.builder().post(post).user(user).build();
-                    likeRepository.save(newLike);
-                    post.setLikes(post.getLikes() + 1);
-                    postRepository.save(post);
-                }
-        );
+    public void likePost(Long postId, Long userId) {
+        if (!unlike(postId, userId)) {
+            like(postId, userId);
+        }
+    }
+
+    @Override
+    public boolean like(Long postId, Long userId) {
+        requirePost(postId);
+
+        if (likeRepository.insertIfAbsent(postId, userId) == 0) {
+            return false; // already liked
+        }
+        likeCounts.add(postId, 1);
+        events.publishEvent(PostEvent.likes(postId, userId, 1));
+        return true;
+    }
+
+    @Override
+    public boolean unlike(Long postId, Long userId) {
+        requirePost(postId);
+
+        if (likeRepository.deleteByPostIdAndUserId(postId, userId) == 0) {
+            return false; // was not liked
+        }
+        likeCounts.add(postId, -1);
+        events.publishEvent(PostEvent.likes(postId, userId, -1));
+        return true;
     }
 
     @Override
+    public Set<Long> getLikedPostIds(Long userId, Collection<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return Set.of();
+        }
+        return likedPosts.likedAmong(userId, postIds);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public long getLikesCount(Long postId) {
-        Post post = postRepository.findById(postId)
+        PostDto cached = postCache.peek(postId);
+        if (cached != null) {
+            return cached.getLikes();
+        }
+        Integer persisted = postRepository.findLikeCountById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-        return likeRepository.countByPost(post);
+        return currentLikes(postId, persisted);
     }
 
     // =========================
@@ -195,82 +454,94 @@ public class PostServiceImpl implements PostService {
     // =========================
     @Override
     @Transactional
-    public CommentDto addComment(Long postId, String username, String content) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    public CommentDto addComment(Long postId, Long userId, String username, String content) {
+        requirePost(postId);
 
         PostComment comment = PostComment.builder()
-                .post(post)
-                .user(user)
+                .post(postRepository.getReferenceById(postId))
+                .user(userRepository.getReferenceById(userId))
                 .content(content)
                 .build();
 
         PostComment saved = commentRepository.save(comment);
+        postRepository.adjustComments(postId, 1);
+        authorStats.adjustCommentsOfPost(postId, 1);
 
-        // Ensure we don't hit a NullPointerException if post.comments is null
-     // SAFE: Handle null and calculate new count
-        Integer current = post.getComments();
-        post.setComments((current == null ? 0 : current) + 1);
-
-        // Save the post
-
-        
-        // Save the post so the database updates the count column
-        postRepository.save(post); 
-
-        return CommentDto.builder()
+        CommentDto added = CommentDto.builder()
                 .id(saved.getId())
-                .postId(post.getId())
-                .authorUsername(user.getUsername())
+                .postId(postId)
+                .authorUsername(username)
                 .content(saved.getContent())
                 .createdAt(saved.getCreatedAt())
                 .build();
+        events.publishEvent(PostEvent.commentAdded(added));
+        return added;
     }
 
 
     @Override
     public List<CommentDto> getComments(Long postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-
-        return commentRepository.findByPostOrderByCreatedAtDesc(post)
-                .stream()
-                .map(c -> CommentDto.builder()
-                        .id(c.getId())
-                        .postId(post.getId())
-                        .authorUsername(c.getUser().getUsername())
-                        .content(c.getContent())
-                        .createdAt(c.getCreatedAt())
-                        .build())
-                .collect(Collectors.toList());
+        requirePost(postId);
+        return commentRepository.findDtosByPostId(postId);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public long getCommentsCount(Long postId) {
-        Post post = postRepository.findById(postId)
+        PostDto cached = postCache.peek(postId);
+        if (cached != null) {
+            return cached.getComments();
+        }
+        return postRepository.findCommentCountById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-        return commentRepository.countByPost(post);
+    }
+
+    // persisted counter plus any delta still buffered by write-behind
+    private int currentLikes(Long postId, Integer persisted) {
+        long likes = (persisted == null ? 0 : persisted) + likeCounts.pending(postId);
+        return (int) Math.max(0, likes);
+    }
+
+    private void requirePost(Long postId) {
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found");
+        }
     }
 
     // =========================
     // MAPPER
     // =========================
+    // merges buffered likes; the projection carries only a prefix of the image column:
+    // upload paths are served as-is, inline base64 goes through GET /api/posts/{id}/image
+    private PostSummaryDto decorate(PostSummaryDto summary) {
+        summary.setLikes(currentLikes(summary.getId(), summary.getLikes()));
+
+        summary.setImageUrl(imageUrlOf(summary.getId(), summary.getImageUrl()));
+        return summary;
+    }
+
+    private static String imageUrlOf(Long postId, String ref) {
+        if (ref == null || ref.isEmpty()) {
+            return null;
+        }
+        return ref.startsWith("/") ? ref : "/api/posts/" + postId + "/image";
+    }
+
     private PostDto mapToDto(Post post) {
+        return mapToDto(post, post.getAuthor() != null ? post.getAuthor().getUsername() : null);
+    }
+
+    // authorUsername passed in so an uninitialised author proxy is never loaded; a legacy inline
+    // image becomes its URL, so PostCache and PostEvents never hold the base64 payload
+    private PostDto mapToDto(Post post, String authorUsername) {
         return PostDto.builder()
             .id(post.getId())
             .title(post.getTitle())
             .content(post.getContent())
-            .imageBase64(post.getImageBase64())
+            .imageBase64(imageUrlOf(post.getId(), post.getImageBase64()))
 
             // 👇 AUTHOR INFO (FIX)
-            .authorUsername(
-                post.getAuthor() != null
-                    ? post.getAuthor().getUsername()
-                    : null
-            )
+            .authorUsername(authorUsername)
             .authorId( // 🔥 ADD THIS
                 post.getAuthor() != null
                     ? post.getAuthor().getId()
@@ -278,7 +549,7 @@ public class PostServiceImpl implements PostService {
             )
 
             .createdAt(post.getCreatedAt())
-            .likes(post.getLikes())
+            .likes(currentLikes(post.getId(), post.getLikes()))
             .comments(post.getComments())
             .build();
     }
@@ -0,0 +1,358 @@
+package com.blog.service;
+
+import com.blog.dto.PostEngagement;
+import com.blog.event.FeedVersion;
+import com.blog.event.PostEvent;
+import com.blog.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trending ranking of posts: likes and comments, each weighted and decayed
+ * with a half-life, kept up to date from {@link PostEvent}s.
+ *
+ * Uses forward decay: an interaction at time t adds weight * e^(λ(t - L))
+ * for a fixed landmark L instead of decaying every score as time passes.
+ * All scores shrink by the same factor over time, so the order only changes
+ * when something is recorded, and an update touches a single post. Scores
+ * are rebased onto a new landmark before the exponent gets large. An unlike
+ * or a deleted comment takes back the post's average share per unit of
+ * weight, since when the original interaction happened is not known.
+ *
+ * The ranking is a skip list ordered by score next to a map of the current
+ * scores, so top(k) walks k entries. The least trending posts are dropped
+ * once more than capacity are tracked. The state is checkpointed to a file
+ * periodically and on shutdown; without a checkpoint it is seeded from the
+ * counters of recent posts.
+ */
+@Component
+public class TrendingScores {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingScores.class);
+
+    private static final int CHECKPOINT_MAGIC = 0x54524e32; // "TRN2"
+    // e^64 is far from overflowing a double and keeps old contributions above underflow
+    private static final double MAX_EXPONENT = 64;
+    // a score decayed below this is not worth keeping across a rebase
+    private static final double NEGLIGIBLE = 1e-6;
+
+    private record Ranked(Long postId, double score) {}
+
+    // score relative to the landmark, and the undecayed weight recorded for the post so far
+    private record Entry(double score, double weight) {}
+
+    private static final Comparator<Ranked> BY_SCORE_DESC = Comparator
+            .comparingDouble(Ranked::score).reversed()
+            .thenComparing(Ranked::postId, Comparator.reverseOrder());
+
+    private final PostRepository postRepository;
+    private final FeedVersion feedVersion;
+    private final long halfLifeMillis;
+    private final double lambda;
+    private final double likeWeight;
+    private final double commentWeight;
+    private final int capacity;
+    private final Path checkpointFile;
+
+    // a post is in the ranking iff it is in scores
+    private final Map<Long, Entry> scores = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>(BY_SCORE_DESC);
+    // updates share the read lock; a rebase takes the write lock to rescale everything at once
+    private final ReadWriteLock rebase = new ReentrantReadWriteLock();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile long landmark = System.currentTimeMillis();
+    private volatile boolean restored;
+
+    public TrendingScores(PostRepository postRepository,
+                          FeedVersion feedVersion,
+                          MeterRegistry meterRegistry,
+                          @Value("${blog.trending.half-life-ms:21600000}") long halfLifeMillis,
+                          @Value("${blog.trending.like-weight:1.0}") double likeWeight,
+                          @Value("${blog.trending.comment-weight:3.0}") double commentWeight,
+                          @Value("${blog.trending.capacity:1000}") int capacity,
+                          @Value("${blog.trending.checkpoint-file:/var/lib/blog/trending.ckpt}") String checkpointFile) {
+        this.postRepository = postRepository;
+        this.feedVersion = feedVersion;
+        this.halfLifeMillis = halfLifeMillis;
+        this.lambda = Math.log(2) / halfLifeMillis;
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.capacity = Math.max(1, capacity);
+        this.checkpointFile = checkpointFile == null || checkpointFile.isBlank() ? null : Paths.get(checkpointFile);
+        if (this.checkpointFile != null && !this.checkpointFile.isAbsolute()) {
+            // a relative path would land wherever the process happens to be started
+            throw new IllegalArgumentException("blog.trending.checkpoint-file must be an absolute path: " + checkpointFile);
+        }
+        Gauge.builder("trending.tracked", scores, Map::size).register(meterRegistry);
+    }
+
+    // =========================
+    // READ
+    // =========================
+    // ids of the k highest scoring posts, best first
+    public List<Long> top(int k) {
+        List<Long> ids = new ArrayList<>(Math.min(k, capacity));
+        rebase.readLock().lock();
+        try {
+            Iterator<Ranked> it = ranking.iterator();
+            while (ids.size() < k && it.hasNext()) {
+                ids.add(it.next().postId());
+            }
+        } finally {
+            rebase.readLock().unlock();
+        }
+        return ids;
+    }
+
+    // =========================
+    // WRITE-THROUGH
+    // =========================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEvent event) {
+        long now = System.currentTimeMillis();
+        switch (event.type()) {
+            case LIKES_CHANGED -> record(event.postId(), likeWeight * event.delta(), now);
+            case COMMENT_ADDED, COMMENT_DELETED -> record(event.postId(), commentWeight * event.delta(), now);
+            case POST_DELETED -> remove(event.postId());
+            default -> { }
+        }
+    }
+
+    // adds weight as of atMillis; a negative weight takes back an earlier interaction, at most
+    // what the post has, and removes the post once all of its recorded weight is taken back
+    void record(Long postId, double weight, long atMillis) {
+        if (weight == 0) {
+            return;
+        }
+        if (lambda * (atMillis - landmark) > MAX_EXPONENT) {
+            rebase(atMillis);
+        }
+
+        rebase.readLock().lock();
+        try {
+            double increment = weight * Math.exp(lambda * (atMillis - landmark));
+            // compute() locks the post's bin, so the skip list entry is swapped atomically per post
+            scores.compute(postId, (id, old) -> {
+                if (old != null) {
+                    ranking.remove(new Ranked(id, old.score()));
+                }
+                Entry next;
+                if (weight > 0) {
+                    next = old == null
+                            ? new Entry(increment, weight)
+                            : new Entry(old.score() + increment, old.weight() + weight);
+                } else {
+                    if (old == null || old.weight() + weight <= NEGLIGIBLE) {
+                        return null;
+                    }
+                    // the taken back share is the post's average, so it never exceeds the score
+                    double left = old.weight() + weight;
+                    next = new Entry(old.score() * left / old.weight(), left);
+                }
+                ranking.add(new Ranked(id, next.score()));
+                return next;
+            });
+            evictOverflow();
+        } finally {
+            rebase.readLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    void remove(Long postId) {
+        rebase.readLock().lock();
+        try {
+            scores.computeIfPresent(postId, (id, old) -> {
+                ranking.remove(new Ranked(id, old.score()));
+                return null;
+            });
+        } finally {
+            rebase.readLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    // drops the lowest scores; an entry updated meanwhile keeps its new score. Callers hold a
+    // lock so that a rebase never rescales the entry between pollLast and remove
+    private void evictOverflow() {
+        while (scores.size() > capacity) {
+            Ranked lowest = ranking.pollLast();
+            if (lowest == null) {
+                return;
+            }
+            scores.computeIfPresent(lowest.postId(), (id, entry) -> entry.score() == lowest.score() ? null : entry);
+        }
+    }
+
+    private void rebase(long now) {
+        rebase.writeLock().lock();
+        try {
+            if (lambda * (now - landmark) <= MAX_EXPONENT) {
+                return; // another writer already did
+            }
+            double factor = Math.exp(-lambda * (now - landmark));
+            landmark = now;
+            ranking.clear();
+            scores.replaceAll((id, entry) -> new Entry(entry.score() * factor, entry.weight()));
+            scores.values().removeIf(entry -> entry.score() < NEGLIGIBLE);
+            scores.forEach((id, entry) -> ranking.add(new Ranked(id, entry.score())));
+        } finally {
+            rebase.writeLock().unlock();
+        }
+    }
+
+    // =========================
+    // CHECKPOINT
+    // =========================
+    @PostConstruct
+    public void restore() {
+        if (checkpointFile == null) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readLong() != halfLifeMillis) {
+                logger.info("Ignoring trending checkpoint {}: written with other settings", checkpointFile);
+                return;
+            }
+            long savedLandmark = in.readLong();
+            int count = in.readInt();
+            rebase.writeLock().lock();
+            try {
+                landmark = savedLandmark;
+                for (int i = 0; i < count; i++) {
+                    long id = in.readLong();
+                    double score = in.readDouble();
+                    double weight = in.readDouble();
+                    scores.put(id, new Entry(score, weight));
+                    ranking.add(new Ranked(id, score));
+                }
+                evictOverflow(); // capacity may have been lowered since
+            } finally {
+                rebase.writeLock().unlock();
+            }
+            restored = true;
+            logger.info("Restored {} trending scores from {}", scores.size(), checkpointFile);
+        } catch (NoSuchFileException e) {
+            // first start: seeded from the database once the application is up
+        } catch (IOException e) {
+            logger.warn("Could not read trending checkpoint {}", checkpointFile, e);
+            scores.clear();
+            ranking.clear();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${blog.trending.checkpoint-interval-ms:60000}",
+               initialDelayString = "${blog.trending.checkpoint-interval-ms:60000}")
+    public void checkpointIfChanged() {
+        if (dirty.getAndSet(false)) {
+            checkpoint();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void checkpoint() {
+        if (checkpointFile == null) {
+            return;
+        }
+        long savedLandmark;
+        Map<Long, Entry> entries = new HashMap<>(scores.size());
+        // the read lock only keeps a rebase out, so landmark and scores belong together
+        rebase.readLock().lock();
+        try {
+            savedLandmark = landmark;
+            entries.putAll(scores);
+        } finally {
+            rebase.readLock().unlock();
+        }
+
+        try {
+            Path dir = checkpointFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, checkpointFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeLong(halfLifeMillis);
+                out.writeLong(savedLandmark);
+                out.writeInt(entries.size());
+                for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeDouble(entry.getValue().score());
+                    out.writeDouble(entry.getValue().weight());
+                }
+            }
+            // readers of the file only ever see a complete checkpoint
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.warn("Could not write trending checkpoint {}", checkpointFile, e);
+        }
+    }
+
+    // =========================
+    // SEED
+    // =========================
+    // no checkpoint: attribute the counters of recent posts to their creation time
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (restored || !scores.isEmpty()) {
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        // older contributions have decayed to under 1/1000 of their weight
+        LocalDateTime since = LocalDateTime.now().minusNanos(halfLifeMillis * 10 * 1_000_000);
+        try {
+            List<PostEngagement> recent = postRepository.findEngagedSince(since, PageRequest.of(0, capacity));
+            for (PostEngagement post : recent) {
+                long at = post.createdAt().atZone(zone).toInstant().toEpochMilli();
+                double weight = likeWeight * value(post.likes()) + commentWeight * value(post.comments());
+                record(post.id(), weight, Math.min(at, System.currentTimeMillis()));
+            }
+            if (!recent.isEmpty()) {
+                feedVersion.bump();
+                logger.info("Seeded trending scores from {} posts since {}", recent.size(), since);
+            }
+        } catch (RuntimeException e) {
+            // typically the database is not reachable yet; events fill the ranking from here on
+            logger.warn("Could not seed trending scores", e);
+        }
+    }
+
+    private static int value(Integer counter) {
+        return counter == null ? 0 : counter;
+    }
+}
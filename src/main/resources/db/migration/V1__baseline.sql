@@ -0,0 +1,51 @@
+-- Schema as Hibernate's ddl-auto=update left it before migrations took over, constraint
+-- names included. Databases created that way are baselined at this version
+-- (spring.flyway.baseline-on-migrate) and only run what comes after; empty databases run it
+-- to get the same tables. Never change it: later changes go into a new migration.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255),
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    username VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_r43af9ap4edm43mmtq01oddj6 UNIQUE (username)
+) ENGINE=InnoDB;
+
+CREATE TABLE posts (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    comments INTEGER NOT NULL,
+    content TEXT,
+    created_at DATETIME(6),
+    -- inline base64; InlineImageMigration moves it out and shrinks the column
+    image_base64 LONGTEXT,
+    likes INTEGER NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    updated_at DATETIME(6),
+    author_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT FK6xvn0811tkyo3nfjk2xvqx6ns FOREIGN KEY (author_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE post_comments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    content TEXT NOT NULL,
+    created_at DATETIME(6),
+    post_id BIGINT,
+    user_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT FKaawaqxjs3br8dw5v90w7uu514 FOREIGN KEY (post_id) REFERENCES posts (id),
+    CONSTRAINT FKsnxoecngu89u3fh4wdrgf0f2g FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE post_likes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    created_at DATETIME(6),
+    post_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK5l2rj28vw5oj6f7ox746grokg UNIQUE (post_id, user_id),
+    CONSTRAINT FKa5wxsgl4doibhbed9gm7ikie2 FOREIGN KEY (post_id) REFERENCES posts (id),
+    CONSTRAINT FKkgau5n0nlewg6o9lr4yibqgxj FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
@@ -0,0 +1,19 @@
+-- one row per distinct upload, shared by every post with the same bytes
+CREATE TABLE stored_images (
+    sha256 VARCHAR(64) NOT NULL,
+    path VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255),
+    size_bytes BIGINT,
+    ref_count INTEGER NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (sha256)
+) ENGINE=InnoDB;
+
+-- running totals per author; a row is created on the first read of an author's stats
+CREATE TABLE author_stats (
+    author_id BIGINT NOT NULL,
+    posts BIGINT NOT NULL,
+    likes BIGINT NOT NULL,
+    comments BIGINT NOT NULL,
+    PRIMARY KEY (author_id)
+) ENGINE=InnoDB;
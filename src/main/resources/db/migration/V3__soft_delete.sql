@@ -0,0 +1,2 @@
+-- set on delete; the row, its likes, comments and image are purged in the background (PostPurger)
+ALTER TABLE posts ADD COLUMN deleted_at DATETIME(6);
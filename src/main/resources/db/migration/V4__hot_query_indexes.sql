@@ -0,0 +1,16 @@
+-- Indexes for the hot read paths; QueryPlanTest checks each query still uses its index.
+
+-- author timeline: WHERE author_id = ? ORDER BY created_at DESC, id DESC; also covers the author_id foreign key
+CREATE INDEX idx_posts_author_created ON posts (author_id, created_at, id);
+
+-- feed: WHERE deleted_at IS NULL ORDER BY created_at DESC, id DESC (keyset on created_at, id).
+-- Every post read filters out tombstones, so deleted_at leads; the purger's
+-- WHERE deleted_at IS NOT NULL ORDER BY deleted_at scan uses it too.
+CREATE INDEX idx_posts_created ON posts (deleted_at, created_at, id);
+
+-- comments of a post, newest first, and the keyset page WHERE post_id = ? AND id < ? ORDER BY id DESC
+-- (ids grow with created_at); also covers the post_id foreign key
+CREATE INDEX idx_post_comments_post_id ON post_comments (post_id, id);
+
+-- which of a feed page's posts a user liked; also covers the user_id foreign key
+CREATE INDEX idx_post_likes_user_post ON post_likes (user_id, post_id);
@@ -0,0 +1,9 @@
+-- Shared feed version: every instance bumps it (at most once per sync interval) after local
+-- changes and polls it, so changes made through another instance also move the feed ETag.
+CREATE TABLE feed_version (
+    id TINYINT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+INSERT INTO feed_version (id, version) VALUES (1, 0);
@@ -4,6 +4,8 @@ let currentViewingPostId = null;
 
 const el = (id) => document.getElementById(id);
 const escapeHtml = (s) => s ? String(s).replace(/&/g, "&amp;").replace(/</g, "&lt;").replace(/>/g, "&gt;") : "";
+// uploads come in resized variants (?w=); other image URLs are used as-is
+const imageSrc = (url, w) => url && url.startsWith('/uploads/') ? `${url}?w=${w}` : url;
 const formatTime = (v) => { try { return new Date(v).toLocaleString(); } catch (e) { return v; } };
 
 // ---------------- AUTH HELPERS ----------------
@@ -29,11 +31,11 @@ function createInteractionRow(post) {
     // We use || 0 to ensure that even if the backend sends null, the UI shows 0
     return `
         <div class="interaction-row-container">
-            <button class="btn-stat-box" onclick="window.likePostDirectly(event, '${post.id}')">
+            <button class="btn-stat-box" data-like-post="${post.id}" onclick="window.likePostDirectly(event, '${post.id}')">
                 ❤️ <span id="like-count-${post.id}">${post.likes || 0}</span>
             </button>
             <button class="btn-stat-box" onclick="event.stopPropagation(); window.openPostModalById('${post.id}')">
-                💬 <span>${post.comments || 0}</span>
+                💬 <span id="comment-count-${post.id}">${post.comments || 0}</span>
             </button>
             ${isOwner ? `
             <button class="btn-stat-box danger-hover" onclick="window.deletePostDirectly(event, '${post.id}')" title="Delete Post?">
@@ -47,7 +49,7 @@ function createInteractionRow(post) {
 
 async function fetchPosts() {
     try {
-        const r = await fetch(`${API_BASE}/posts`, { 
+        const r = await fetch(`${API_BASE}/posts?after=&size=10`, { 
             headers: getAuthHeader() 
         });
         
@@ -65,11 +67,26 @@ async function fetchPosts() {
 
         renderCarousel(posts.slice(0, 6)); 
         renderArchive(posts);
+        markLikedByMe(posts);
     } catch (e) { 
         console.error("CONNECTION_ERROR", e); 
     }
 }
 
+// one request for the whole page instead of one per post
+async function markLikedByMe(posts) {
+    if (!posts.length || !getLoggedInUsername()) return;
+    try {
+        const ids = posts.map(p => p.id).join(',');
+        const r = await fetch(`${API_BASE}/posts/likes/mine?ids=${ids}`, { headers: getAuthHeader() });
+        if (!r.ok) return;
+        const liked = new Set(await r.json());
+        document.querySelectorAll('[data-like-post]').forEach(btn => {
+            btn.classList.toggle('liked', liked.has(Number(btn.dataset.likePost)));
+        });
+    } catch (e) { console.error("LIKED_BY_ME_ERR", e); }
+}
+
 async function submitPost() {
     const titleVal = el('title').value.trim();
     const contentVal = el('content').value.trim();
@@ -144,8 +161,8 @@ async function fetchComments(postId) {
     container.innerHTML = '<p class="label-text">Decrypting Signals...</p>';
 
     try {
-        const r = await fetch(`${API_BASE}/posts/${postId}/comments`, { headers: getAuthHeader() });
-        const comments = await r.json();
+        const r = await fetch(`${API_BASE}/posts/${postId}/comments?limit=50`, { headers: getAuthHeader() });
+        const comments = (await r.json()).content || [];
         container.innerHTML = comments.length ? '' : '<p class="cyber-para" style="opacity:0.5;">No Comments</p>';
 
         comments.forEach(c => {
@@ -207,7 +224,7 @@ item.innerHTML = `
 
 <div class="card-image-wrapper">
 
-${post.imageBase64 ? `<img src="${post.imageBase64}" class="box-img">` : ``}
+${post.imageUrl ? `<img src="${imageSrc(post.imageUrl, 768)}" class="box-img">` : ``}
 
 
 
@@ -228,7 +245,7 @@ ${createInteractionRow(post)}
 
 item.onclick = (e) => {
 
-if(!e.target.closest('button')) openPostModal(post);
+if(!e.target.closest('button')) window.openPostModalById(post.id);
 
 };
 
@@ -258,7 +275,7 @@ card.innerHTML = `
 
 <div class="archive-img-wrapper">
 
-${post.imageBase64 ? `<img src="${post.imageBase64}" class="box-img">` : ``}
+${post.imageUrl ? `<img src="${imageSrc(post.imageUrl, 320)}" class="box-img" loading="lazy">` : ``}
 
 
 
@@ -276,7 +293,7 @@ ${createInteractionRow(post)}
 
 card.onclick = (e) => {
 
-if(!e.target.closest('button')) openPostModal(post);
+if(!e.target.closest('button')) window.openPostModalById(post.id);
 
 };
 
@@ -295,7 +312,7 @@ function openPostModal(post) {
     el('modalDate').textContent = formatTime(post.createdAt);
 	if (post.imageBase64) {
 	    el('modalImageContainer').style.display = 'block';
-	    el('modalImage').src = post.imageBase64;
+	    el('modalImage').src = imageSrc(post.imageBase64, 768);
 	} else {
 	    el('modalImageContainer').style.display = 'none';
 	}
@@ -324,10 +341,29 @@ function handleLogout() {
     window.location = '/index.html';
 }
 
+// ---------------- LIVE UPDATES ----------------
+
+function subscribeToFeed() {
+    if (!window.EventSource) return;
+    const source = new EventSource(`${API_BASE}/posts/stream`);
+    // counter events patch the visible cards in place, no refetch
+    const bump = (prefix) => (e) => {
+        const ev = JSON.parse(e.data);
+        const span = el(`${prefix}-${ev.postId}`);
+        if (span) span.textContent = Math.max(0, (parseInt(span.textContent, 10) || 0) + ev.delta);
+    };
+    source.addEventListener('likes_changed', bump('like-count'));
+    source.addEventListener('comment_added', bump('comment-count'));
+    source.addEventListener('comment_deleted', bump('comment-count'));
+    ['post_created', 'post_updated', 'post_deleted']
+        .forEach(type => source.addEventListener(type, () => fetchPosts()));
+}
+
 // ---------------- EVENT LISTENERS ----------------
 
 document.addEventListener('DOMContentLoaded', () => {
     fetchPosts();
+    subscribeToFeed();
     el('btnSubmitPost').onclick = submitPost;
     
     el('modalCommentSubmit').onclick = async () => {
@@ -1,6 +1,6 @@
 package com.blog.controller;
 
-import com.blog.dto.PostDto;
+import com.blog.dto.PostSummaryDto;
 import com.blog.service.PostService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -29,10 +29,10 @@ class PostControllerTest {
 
     @Test
     void getAllPosts_returnsPagedPosts() throws Exception {
-        PostDto dto = PostDto.builder()
+        PostSummaryDto dto = PostSummaryDto.builder()
                 .id(1L)
                 .title("Hello")
-                .content("World")
+                .excerpt("World")
                 .authorUsername("alice")
                 .createdAt(LocalDateTime.now())
                 .likes(0)
@@ -40,7 +40,7 @@ class PostControllerTest {
                 .build();
 
         PageRequest pageable = PageRequest.of(0, 10, Sort.by("createdAt").descending());
-        Page<PostDto> page = new PageImpl<>(List.of(dto), pageable, 1);
+        Page<PostSummaryDto> page = new PageImpl<>(List.of(dto), pageable, 1);
 
         Mockito.when(postService.getAllPosts(Mockito.any(Pageable.class))).thenReturn(page);
 
@@ -0,0 +1,26 @@
+package com.blog.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeedCursorTest {
+
+    @Test
+    void encodeDecode_roundTrips() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2025, 12, 24, 16, 41, 24, 123_000_000), 42L);
+
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_rejectsGarbage() {
+        assertThatThrownBy(() -> FeedCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.blog.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedVersionTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final FeedVersion feedVersion = new FeedVersion(jdbcTemplate);
+
+    @Test
+    void sync_picksUpChangesMadeByOtherInstances() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(3L, 3L, 4L);
+        feedVersion.sync();
+        String etag = feedVersion.etag();
+
+        feedVersion.sync();
+        assertThat(feedVersion.etag()).isEqualTo(etag);
+        verify(jdbcTemplate, never()).update(anyString());
+
+        feedVersion.sync(); // another instance bumped the shared row
+        assertThat(feedVersion.etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void localChange_movesEtagAtOnceAndBumpsSharedVersionOnSync() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(3L);
+        String etag = feedVersion.etag();
+
+        feedVersion.onPostEvent(PostEvent.deleted(1L, null));
+        assertThat(feedVersion.etag()).isNotEqualTo(etag);
+
+        feedVersion.sync();
+        verify(jdbcTemplate).update("UPDATE feed_version SET version = version + 1 WHERE id = 1");
+    }
+
+    @Test
+    void untrackedChanges_countOtherInstancesAndBumpsButNotOwnEvents() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(3L, 4L, 6L);
+        feedVersion.sync();
+        long untracked = feedVersion.untrackedChanges();
+
+        feedVersion.onPostEvent(PostEvent.deleted(1L, null));
+        feedVersion.sync(); // 3 -> 4 is our own increment
+        assertThat(feedVersion.untrackedChanges()).isEqualTo(untracked);
+
+        feedVersion.onPostEvent(PostEvent.deleted(2L, null));
+        feedVersion.sync(); // 4 -> 6: another instance changed something as well
+        assertThat(feedVersion.untrackedChanges()).isGreaterThan(untracked);
+
+        untracked = feedVersion.untrackedChanges();
+        feedVersion.bump();
+        assertThat(feedVersion.untrackedChanges()).isGreaterThan(untracked);
+    }
+
+    @Test
+    void unreadableSharedVersion_neverKeepsAnEtag() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        String etag = feedVersion.etag();
+
+        feedVersion.sync();
+
+        assertThat(feedVersion.etag()).isNotEqualTo(etag);
+    }
+}
@@ -0,0 +1,20 @@
+package com.blog.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostEventTest {
+
+    // PostStreamHub sends events as they serialise to anonymous subscribers
+    @Test
+    void likes_keepsTheLikingUserOutOfTheJson() throws Exception {
+        PostEvent event = PostEvent.likes(1L, 7L, 1);
+
+        String json = new ObjectMapper().writeValueAsString(event);
+
+        assertThat(event.userId()).isEqualTo(7L);
+        assertThat(json).doesNotContain("userId").doesNotContain("7");
+    }
+}
@@ -5,6 +5,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -15,6 +20,9 @@ class PostRepositoryTest {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void testSavePost() {
         Post post = new Post();
@@ -26,4 +34,21 @@ class PostRepositoryTest {
         assertThat(saved.getId()).isNotNull();
         assertThat(saved.getTitle()).isEqualTo("Test title");
     }
+
+    @Test
+    void tombstonedPost_isHiddenFromReadsUntilPurged() {
+        Post post = new Post();
+        post.setTitle("Deleted");
+        Long id = postRepository.save(post).getId();
+
+        assertThat(postRepository.tombstone(List.of(id), LocalDateTime.now())).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(postRepository.findById(id)).isEmpty();
+        assertThat(postRepository.existsById(id)).isFalse();
+        assertThat(postRepository.findTombstonedIds(PageRequest.of(0, 10))).contains(id);
+
+        assertThat(postRepository.purge(List.of(id))).isEqualTo(1);
+        assertThat(postRepository.findTombstonedIds(PageRequest.of(0, 10))).doesNotContain(id);
+    }
 }
@@ -0,0 +1,136 @@
+package com.blog.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAINs the hot read queries against the migrated MySQL schema and fails
+ * when one of them no longer reads through its index (or starts sorting).
+ * Each statement is the posts-side SQL of the repository method named on
+ * its test.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)  // EXPLAIN output is MySQL's
+class QueryPlanTest {
+
+    private static final int AUTHORS = 20;
+    private static final int POSTS = 400;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+    private long postId;
+
+    // enough rows that a full scan is never the cheap choice; rolled back after each test
+    @BeforeEach
+    void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            users.add(new Object[]{"plan-user-" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, role) VALUES (?, 'x', 'ROLE_USER')", users);
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE 'plan-user-%' ORDER BY id", Long.class);
+        userId = userIds.get(0);
+
+        List<Object[]> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            posts.add(new Object[]{"plan-post-" + i, userIds.get(i % AUTHORS), i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (title, author_id, likes, comments, created_at) " +
+                "VALUES (?, ?, 0, 0, NOW(6) - INTERVAL ? MINUTE)", posts);
+        List<Long> postIds = jdbcTemplate.queryForList(
+                "SELECT id FROM posts WHERE title LIKE 'plan-post-%' ORDER BY id", Long.class);
+        postId = postIds.get(0);
+
+        List<Object[]> children = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            children.add(new Object[]{postIds.get(i), userIds.get(i % AUTHORS)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO post_comments (post_id, user_id, content, created_at) " +
+                "VALUES (?, ?, 'comment', NOW(6))", children);
+        jdbcTemplate.batchUpdate("INSERT INTO post_likes (post_id, user_id, created_at) VALUES (?, ?, NOW(6))", children);
+    }
+
+    private Map<String, Object> explain(String sql, Object... args) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+        assertThat(plan).as("plan of %s", sql).hasSize(1);
+        return plan.get(0);
+    }
+
+    private void assertReadsThrough(String index, String sql, Object... args) {
+        Map<String, Object> plan = explain(sql, args);
+        assertThat(plan.get("key")).as("index used by %s, plan %s", sql, plan).isEqualTo(index);
+        assertThat(String.valueOf(plan.get("Extra"))).as("plan %s", plan).doesNotContain("filesort");
+    }
+
+    // PostRepository.findFeedFirst
+    @Test
+    void feedFirstPage_readsIndexInOrder() {
+        assertReadsThrough("idx_posts_created",
+                "SELECT p.id FROM posts p WHERE p.deleted_at IS NULL " +
+                "ORDER BY p.created_at DESC, p.id DESC LIMIT 10");
+    }
+
+    // PostRepository.findFeedAfter
+    @Test
+    void feedAfterCursor_readsIndexInOrder() {
+        assertReadsThrough("idx_posts_created",
+                "SELECT p.id FROM posts p WHERE p.deleted_at IS NULL " +
+                "AND (p.created_at < NOW(6) - INTERVAL 100 MINUTE " +
+                "OR (p.created_at = NOW(6) - INTERVAL 100 MINUTE AND p.id < ?)) " +
+                "ORDER BY p.created_at DESC, p.id DESC LIMIT 10", postId + 100);
+    }
+
+    // PostRepository.findAuthorFeedFirst
+    @Test
+    void authorTimeline_readsAuthorIndexInOrder() {
+        assertReadsThrough("idx_posts_author_created",
+                "SELECT p.id FROM posts p WHERE p.author_id = ? AND p.deleted_at IS NULL " +
+                "ORDER BY p.created_at DESC, p.id DESC LIMIT 10", userId);
+    }
+
+    // PostRepository.findTombstonedIds
+    @Test
+    void purgeScan_readsTombstonesThroughIndex() {
+        assertReadsThrough("idx_posts_created",
+                "SELECT id FROM posts WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT 100");
+    }
+
+    // PostCommentRepository.findDtosBefore
+    @Test
+    void commentPage_readsIndexInOrder() {
+        assertReadsThrough("idx_post_comments_post_id",
+                "SELECT c.id FROM post_comments c WHERE c.post_id = ? AND c.id < ? " +
+                "ORDER BY c.id DESC LIMIT 20", postId, Long.MAX_VALUE);
+    }
+
+    // PostCommentRepository.findDtosByPostId
+    @Test
+    void commentsOfPost_readIndexInOrder() {
+        assertReadsThrough("idx_post_comments_post_id",
+                "SELECT c.id FROM post_comments c WHERE c.post_id = ? ORDER BY c.id DESC", postId);
+    }
+
+    // PostLikeRepository.findLikedPostIds
+    @Test
+    void likedAmongPage_readsUserIndex() {
+        Map<String, Object> plan = explain(
+                "SELECT l.post_id FROM post_likes l WHERE l.user_id = ? AND l.post_id IN (?, ?, ?)",
+                userId, postId, postId + 1, postId + 2);
+        // either key turns this into a few point lookups; a scan means both are gone
+        assertThat(plan.get("key")).as("plan %s", plan).isIn("idx_post_likes_user_post", "UK5l2rj28vw5oj6f7ox746grokg");
+        assertThat(plan.get("type")).as("plan %s", plan).isNotEqualTo("ALL");
+    }
+}
@@ -0,0 +1,77 @@
+package com.blog.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Bm25IndexTest {
+
+    private final Bm25Index index = new Bm25Index();
+
+    private List<Long> ids(String query) {
+        return index.search(Tokenizer.tokenize(query), 0, 10).hits().stream().map(Bm25Index.Hit::id).toList();
+    }
+
+    @Test
+    void tokenize_foldsCaseAccentsAndStopWords() {
+        assertThat(Tokenizer.tokenize("The Café, and SPRING-boot 3!")).containsExactly("cafe", "spring", "boot");
+    }
+
+    @Test
+    void search_ranksRareAndRepeatedTermsHigher() {
+        index.put(1, Tokenizer.termFrequencies("java spring boot tutorial"));
+        index.put(2, Tokenizer.termFrequencies("java java java streams"));
+        index.put(3, Tokenizer.termFrequencies("cooking pasta at home"));
+
+        assertThat(ids("java")).containsExactly(2L, 1L);
+        // "spring" occurs in one document only, so it outweighs the common "java"
+        assertThat(ids("java spring")).containsExactly(1L, 2L);
+        assertThat(ids("kotlin")).isEmpty();
+    }
+
+    @Test
+    void search_returnsRequestedWindowAndTotal() {
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, Tokenizer.termFrequencies("post " + "word ".repeat((int) id)));
+        }
+        Bm25Index.Hits hits = index.search(List.of("word"), 2, 2);
+
+        assertThat(hits.total()).isEqualTo(5);
+        assertThat(hits.hits()).extracting(Bm25Index.Hit::id).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void putAddAndRemove_keepPostingsCurrent() {
+        index.put(1, Tokenizer.termFrequencies("old title"));
+        index.put(1, Tokenizer.termFrequencies("new title"));
+        index.add(1, Tokenizer.termFrequencies("great comment"));
+
+        assertThat(ids("old")).isEmpty();
+        assertThat(ids("new")).containsExactly(1L);
+        assertThat(ids("comment")).containsExactly(1L);
+
+        assertThat(index.remove(1)).isTrue();
+        assertThat(ids("title")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void snapshot_roundTrips() throws Exception {
+        index.put(1, Tokenizer.termFrequencies("spring boot"));
+        index.put(2, Tokenizer.termFrequencies("spring data jpa"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        Bm25Index loaded = new Bm25Index();
+        loaded.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(loaded.size()).isEqualTo(2);
+        assertThat(loaded.search(List.of("jpa"), 0, 10).hits()).extracting(Bm25Index.Hit::id).containsExactly(2L);
+    }
+}
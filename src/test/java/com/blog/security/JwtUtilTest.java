@@ -0,0 +1,62 @@
+package com.blog.security;
+
+import com.blog.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(registry);
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "0123456789abcdef0123456789abcdef0123456789");
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheSize", 100);
+        jwtUtil.init();
+    }
+
+    @Test
+    void parseToken_secondCallIsServedFromCache() {
+        User user = User.builder().id(7L).username("alice").role("ROLE_USER").build();
+        String token = jwtUtil.generateToken(user, 60_000);
+
+        Claims first = jwtUtil.parseToken(token);
+        Claims second = jwtUtil.parseToken(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getSubject()).isEqualTo("alice");
+        assertThat(second.get(JwtUtil.ROLES_CLAIM, List.class)).containsExactly("ROLE_USER");
+        assertThat(registry.get("cache.gets").tag("cache", "jwtClaims").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void parseToken_rejectsTamperedToken() {
+        User user = User.builder().id(7L).username("alice").role("ROLE_USER").build();
+        String token = jwtUtil.generateToken(user, 60_000);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtUtil.parseToken(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void generateToken_prefixesUnprefixedRole() {
+        User admin = User.builder().id(1L).username("root").role("ADMIN").build();
+
+        Claims claims = jwtUtil.parseToken(jwtUtil.generateToken(admin, 60_000));
+
+        assertThat(claims.get(JwtUtil.ROLES_CLAIM, List.class)).containsExactly("ROLE_ADMIN");
+        assertThat(JwtUtil.authority("ROLE_ADMIN")).isEqualTo("ROLE_ADMIN");
+    }
+}
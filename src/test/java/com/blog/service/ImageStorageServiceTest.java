@@ -0,0 +1,112 @@
+package com.blog.service;
+
+import com.blog.repository.StoredImageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class ImageStorageServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final StoredImageRepository repository = Mockito.mock(StoredImageRepository.class);
+    // sha -> path, standing in for stored_images
+    private final Map<String, String> rows = new HashMap<>();
+    private ImageStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager txManager = Mockito.mock(PlatformTransactionManager.class);
+        when(txManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.acquire(anyString(), anyString(), any(), anyLong())).thenAnswer(inv -> {
+            rows.putIfAbsent(inv.getArgument(0), inv.getArgument(1));
+            return 1;
+        });
+        when(repository.findPathBySha256(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<String>getArgument(0))));
+
+        storage = new ImageStorageService(repository, txManager, new SimpleMeterRegistry(), dir.toString());
+    }
+
+    private static byte[] withSignature(String body, int... signature) {
+        byte[] bytes = new byte[signature.length + body.length()];
+        for (int i = 0; i < signature.length; i++) {
+            bytes[i] = (byte) signature[i];
+        }
+        System.arraycopy(body.getBytes(), 0, bytes, signature.length, body.length());
+        return bytes;
+    }
+
+    @Test
+    void store_identicalUploadsShareOneContentAddressedFile() throws Exception {
+        byte[] bytes = withSignature("same image bytes", 0xff, 0xd8, 0xff, 0xe0);
+
+        String first = storage.store(new MockMultipartFile("image", "WhatsApp Image.JPEG", "image/jpeg", bytes));
+        String second = storage.store(new MockMultipartFile("image", "copy.jpeg", "image/jpeg", bytes));
+
+        assertThat(first).matches("/uploads/[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.jpg");
+        assertThat(second).isEqualTo(first);
+        Path stored = dir.resolve(first.substring("/uploads/".length()));
+        assertThat(Files.readAllBytes(stored)).isEqualTo(bytes);
+        // the staging area is left empty
+        try (var staged = Files.list(dir.resolve(".tmp"))) {
+            assertThat(staged).isEmpty();
+        }
+    }
+
+    @Test
+    void store_takesTheExtensionFromTheBytesNotTheName() {
+        byte[] png = withSignature("png bytes", 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a);
+        byte[] webp = "RIFF\0\0\0\0WEBPVP8 ".getBytes();
+
+        assertThat(storage.store(new MockMultipartFile("image", "photo.html", "text/html", png))).endsWith(".png");
+        assertThat(storage.store(new MockMultipartFile("image", "photo", null, webp))).endsWith(".webp");
+    }
+
+    @Test
+    void store_rejectsAnythingButTheAcceptedImageTypes() {
+        byte[] html = "<html><script>alert(1)</script></html>".getBytes();
+        byte[] svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" onload=\"alert(1)\"/>".getBytes();
+
+        assertThatThrownBy(() -> storage.store(new MockMultipartFile("image", "x.jpg", "image/jpeg", html)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.store(new MockMultipartFile("image", "x.svg", "image/svg+xml", svg)))
+                .isInstanceOf(IllegalArgumentException.class);
+        // rejected before anything is written
+        assertThat(dir).isEmptyDirectory();
+    }
+
+    @Test
+    void contentTypeOf_onlyKnowsTheAcceptedImageTypes() {
+        assertThat(ImageStorageService.contentTypeOf(Path.of("ab/cd/x.w320.jpg"))).contains("image/jpeg");
+        assertThat(ImageStorageService.contentTypeOf(Path.of("ab/cd/x.html"))).isEmpty();
+        assertThat(ImageStorageService.contentTypeOf(Path.of("0c228d76_page.svg"))).isEmpty();
+    }
+
+    @Test
+    void shaOf_ignoresInlineAndLegacyImages() {
+        assertThat(ImageStorageService.shaOf("data:image/png;base64,AAAA")).isEmpty();
+        assertThat(ImageStorageService.shaOf("/uploads/0c228d76_WhatsApp Image.jpeg")).isEmpty();
+        assertThat(ImageStorageService.shaOf("/uploads/ab/cd/" + "ab".repeat(32) + ".png"))
+                .contains("ab".repeat(32));
+    }
+}
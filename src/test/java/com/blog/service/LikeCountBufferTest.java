@@ -0,0 +1,103 @@
+package com.blog.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LikeCountBufferTest {
+
+    private final StubTransactionManager transactionManager = new StubTransactionManager();
+    private final LikeCountBuffer buffer =
+            new LikeCountBuffer(null, null, mock(JdbcTemplate.class), transactionManager, true);
+
+    @Test
+    void flush_cacheLoadDuringCommitWaitsUntilDeltasAreSettled() throws Exception {
+        buffer.add(1L, 1);
+        buffer.add(1L, 1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?>[] load = new Future<?>[1];
+            transactionManager.onCommit = () -> {
+                // in flight: still counted, but a load must not pair it with the committed row
+                assertThat(buffer.pending(1L)).isEqualTo(2);
+                load[0] = pool.submit(() -> buffer.consistentRead(() -> buffer.pending(1L)));
+                sleep(50);
+                assertThat(load[0]).isNotDone();
+            };
+
+            buffer.flush();
+
+            assertThat(load[0].get(5, TimeUnit.SECONDS)).isEqualTo(0L);
+            assertThat(buffer.pending(1L)).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void flush_failedCommitPutsDeltasBackWithLaterLikes() {
+        buffer.add(1L, 2);
+        transactionManager.onCommit = () -> {
+            // a like committed by another request while the flush is in flight
+            Thread like = new Thread(() -> buffer.add(1L, 1));
+            like.start();
+            join(like);
+            throw new TransactionSystemException("commit failed");
+        };
+
+        buffer.flush();
+
+        assertThat(buffer.pending(1L)).isEqualTo(3);
+        assertThat(buffer.consistentRead(() -> buffer.pending(1L))).isEqualTo(3);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class StubTransactionManager extends AbstractPlatformTransactionManager {
+
+        Runnable onCommit = () -> {};
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            onCommit.run();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.blog.service;
+
+import com.blog.dto.PostDto;
+import com.blog.event.PostEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostCacheTest {
+
+    private final PostCache cache = new PostCache(new SimpleMeterRegistry(), 100, 60_000);
+
+    @Test
+    void get_concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<PostDto> first = pool.submit(() -> cache.get(1L, id -> {
+                loads.incrementAndGet();
+                await(release);
+                return post(id, 3);
+            }));
+            // wait until the first load is in flight, then pile up more misses behind it
+            while (loads.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<PostDto> second = pool.submit(() -> cache.get(1L, id -> post(id, loads.incrementAndGet())));
+            Future<PostDto> third = pool.submit(() -> cache.get(1L, id -> post(id, loads.incrementAndGet())));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getLikes()).isEqualTo(3);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get());
+            assertThat(third.get(5, TimeUnit.SECONDS)).isSameAs(first.get());
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void onPostEvent_patchesCountersAndDropsDeletedPosts() {
+        PostDto loaded = cache.get(1L, id -> post(id, 3));
+
+        cache.onPostEvent(PostEvent.likes(1L, 7L, 1));
+        cache.onPostEvent(PostEvent.commentDeleted(1L, 9L));
+
+        PostDto patched = cache.peek(1L);
+        assertThat(patched.getLikes()).isEqualTo(4);
+        assertThat(patched.getComments()).isZero();
+        // the instance handed out earlier is left untouched
+        assertThat(loaded.getLikes()).isEqualTo(3);
+
+        cache.onPostEvent(PostEvent.deleted(1L, 7L));
+        assertThat(cache.peek(1L)).isNull();
+    }
+
+    private static PostDto post(Long id, int likes) {
+        return PostDto.builder().id(id).title("t").likes(likes).comments(0).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.blog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrendingScoresTest {
+
+    private static final long HOUR = 3_600_000;
+
+    @TempDir
+    Path dir;
+
+    private TrendingScores scores(int capacity) {
+        return new TrendingScores(null, null, new SimpleMeterRegistry(),
+                HOUR, 1.0, 3.0, capacity, dir.resolve("trending.ckpt").toString());
+    }
+
+    @Test
+    void top_ordersByDecayedScore() {
+        TrendingScores trending = scores(10);
+        long now = System.currentTimeMillis();
+        // four likes two half-lives ago are worth one like now
+        for (int i = 0; i < 4; i++) {
+            trending.record(1L, 1.0, now - 2 * HOUR);
+        }
+        trending.record(2L, 1.0, now);
+        trending.record(2L, 1.0, now);
+        trending.record(3L, 1.0, now - HOUR);
+
+        assertThat(trending.top(10)).containsExactly(2L, 1L, 3L);
+        assertThat(trending.top(1)).containsExactly(2L);
+    }
+
+    @Test
+    void record_negativeWeightTakesBackAndRemovesAtZero() {
+        TrendingScores trending = scores(10);
+        long now = System.currentTimeMillis();
+        trending.record(1L, 1.0, now);
+        trending.record(2L, 3.0, now);
+        trending.record(2L, -3.0, now);
+
+        assertThat(trending.top(10)).containsExactly(1L);
+    }
+
+    @Test
+    void record_laterUnlikeTakesBackOneLikesShare() {
+        TrendingScores trending = scores(10);
+        long now = System.currentTimeMillis();
+        // ten likes two half-lives ago, then one of them is taken back now
+        for (int i = 0; i < 10; i++) {
+            trending.record(1L, 1.0, now - 2 * HOUR);
+        }
+        trending.record(2L, 2.2, now - 2 * HOUR);
+        trending.record(1L, -1.0, now);
+
+        assertThat(trending.top(10)).containsExactly(1L, 2L);
+
+        for (int i = 0; i < 8; i++) {
+            trending.record(1L, -1.0, now);
+        }
+        assertThat(trending.top(10)).containsExactly(2L, 1L);
+        trending.record(1L, -1.0, now);
+        assertThat(trending.top(10)).containsExactly(2L);
+    }
+
+    @Test
+    void constructor_rejectsRelativeCheckpointFile() {
+        assertThatThrownBy(() -> new TrendingScores(null, null, new SimpleMeterRegistry(),
+                HOUR, 1.0, 3.0, 10, "trending.ckpt"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void record_overCapacityDropsLowest() {
+        TrendingScores trending = scores(2);
+        long now = System.currentTimeMillis();
+        trending.record(1L, 1.0, now);
+        trending.record(2L, 5.0, now);
+        trending.record(3L, 3.0, now);
+
+        assertThat(trending.top(10)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void record_farInTheFutureRebasesWithoutChangingOrder() {
+        TrendingScores trending = scores(10);
+        long now = System.currentTimeMillis();
+        trending.record(1L, 2.0, now);
+        trending.record(2L, 1.0, now);
+        // 2^200 is past the rebase threshold; post 2 has decayed to nothing by then
+        long later = now + 200 * HOUR;
+        trending.record(3L, 1.0, later);
+        trending.record(1L, 1.5, later);
+
+        assertThat(trending.top(10)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void checkpoint_restoresRanking() {
+        TrendingScores trending = scores(10);
+        long now = System.currentTimeMillis();
+        trending.record(1L, 1.0, now);
+        trending.record(2L, 3.0, now);
+        trending.remove(1L);
+        trending.record(3L, 2.0, now);
+        trending.checkpoint();
+
+        TrendingScores restarted = scores(10);
+        restarted.restore();
+        assertThat(restarted.top(10)).containsExactly(2L, 3L);
+    }
+}